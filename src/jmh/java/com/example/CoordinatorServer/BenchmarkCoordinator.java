@@ -0,0 +1,73 @@
+package com.example.CoordinatorServer;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.sun.net.httpserver.HttpServer;
+
+/*
+ * Shared setup for the benchmarks: a coordinator booted on a random port with
+ * the cloud simulator and no background monitors, and stub broker HTTP
+ * servers on loopback addresses.
+ */
+final class BenchmarkCoordinator {
+
+    private BenchmarkCoordinator() {
+    }
+
+    static ConfigurableApplicationContext start(boolean durableState, String... extraArgs) throws IOException {
+        List<String> args = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--coordinator.cloud.provider=simulator",
+                "--coordinator.heartbeat.enabled=false",
+                "--coordinator.succession.enabled=false",
+                "--coordinator.state.enabled=" + durableState,
+                "--coordinator.state.dir=" + Files.createTempDirectory("coordinator-jmh"),
+                "--logging.level.root=WARN"));
+        args.addAll(List.of(extraArgs));
+        return SpringApplication.run(CoordinatorServerApplication.class, args.toArray(new String[0]));
+    }
+
+    static Broker broker(int uniqueId) {
+        return new Broker(ipAddress(uniqueId), 8080, uniqueId, "i-" + uniqueId);
+    }
+
+    // 10.x.y.z addresses, unique for every uniqueId below 2^24
+    static String ipAddress(int uniqueId) {
+        return "10." + ((uniqueId >> 16) & 0xff) + "." + ((uniqueId >> 8) & 0xff) + "." + (uniqueId & 0xff);
+    }
+
+    /*
+     * Starts one HTTP server per address on port 8080 (the broker port the
+     * coordinator assumes) that answers 200 to everything. Every 127.0.0.0/8
+     * address is local on Linux; other systems may need loopback aliases.
+     */
+    static List<HttpServer> startStubBrokers(List<String> ipAddresses) throws IOException {
+        List<HttpServer> servers = new ArrayList<>();
+        for (String ipAddress : ipAddresses) {
+            HttpServer server = HttpServer.create(new InetSocketAddress(ipAddress, 8080), 64);
+            server.createContext("/", exchange -> {
+                exchange.getRequestBody().readAllBytes();
+                exchange.sendResponseHeaders(200, -1);
+                exchange.close();
+            });
+            server.setExecutor(Executors.newFixedThreadPool(2));
+            server.start();
+            servers.add(server);
+        }
+        return servers;
+    }
+
+    static void stop(List<HttpServer> servers) {
+        for (HttpServer server : servers) {
+            server.stop(0);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.CoordinatorServer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.sun.net.httpserver.HttpServer;
+
+/*
+ * Leaders of clusterCount broker clusters fail at once. Every cluster has its
+ * own elastic IP lane, so with a cloud provider that takes cloudLatencyMs per
+ * call the failovers should take about as long as one, not clusterCount times
+ * as long.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ClusterFailoverBenchmark {
+    private static final int PEERS_PER_CLUSTER = 3;
+
+    @Param({ "1", "4" })
+    public int clusterCount;
+
+    @Param({ "50" })
+    public int cloudLatencyMs;
+
+    private ConfigurableApplicationContext context;
+    private List<HttpServer> stubBrokers;
+    private BrokerRegistrationController controller;
+    private CoordinatorServerService service;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        List<String> peerIps = new ArrayList<>();
+        for (int cluster = 0; cluster < clusterCount; cluster++) {
+            for (int i = 1; i <= PEERS_PER_CLUSTER; i++) {
+                peerIps.add(peerIp(cluster, i));
+            }
+        }
+        stubBrokers = BenchmarkCoordinator.startStubBrokers(peerIps);
+        context = BenchmarkCoordinator.start(false, "--coordinator.simulator.latency-ms=" + cloudLatencyMs,
+                "--coordinator.cloud-ops.workers=" + Math.max(4, clusterCount));
+        controller = context.getBean(BrokerRegistrationController.class);
+        service = context.getBean(CoordinatorServerService.class);
+        for (int cluster = 0; cluster < clusterCount; cluster++) {
+            List<Broker> peers = new ArrayList<>();
+            for (int i = 1; i <= PEERS_PER_CLUSTER; i++) {
+                peers.add(new Broker(peerIp(cluster, i), 8080, i, "i-peer-" + cluster + "-" + i));
+            }
+            // the first registration allocates the cluster's elastic IP
+            service.registerInstances(clusterId(cluster), peers).getCompletion().join();
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void makeDeadBrokersLeaders() {
+        for (int cluster = 0; cluster < clusterCount; cluster++) {
+            String clusterId = clusterId(cluster);
+            String deadInstance = "i-dead-" + cluster;
+            service.registerInstance(new Broker(clusterId, deadLeaderIp(cluster), 8080, 0, deadInstance));
+            service.associateElasticIpWithLeader(clusterId, deadInstance, deadLeaderIp(cluster));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+        BenchmarkCoordinator.stop(stubBrokers);
+    }
+
+    @Benchmark
+    public List<FailoverResult> concurrentFailovers() {
+        List<CompletableFuture<FailoverResult>> failovers = new ArrayList<>();
+        for (int cluster = 0; cluster < clusterCount; cluster++) {
+            String report = "{\"currleadBrokerIPAtNode\":\"" + deadLeaderIp(cluster) + "\"}";
+            failovers.add(controller.handleLeaderNotResponding(clusterId(cluster), report));
+        }
+        List<FailoverResult> results = new ArrayList<>();
+        for (CompletableFuture<FailoverResult> failover : failovers) {
+            results.add(failover.join());
+        }
+        return results;
+    }
+
+    private static String clusterId(int cluster) {
+        return "cluster-" + cluster;
+    }
+
+    private static String peerIp(int cluster, int peer) {
+        return "127.0." + (20 + cluster) + "." + (10 + peer);
+    }
+
+    private static String deadLeaderIp(int cluster) {
+        return "127.0." + (20 + cluster) + ".250";
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.CoordinatorServer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.sun.net.httpserver.HttpServer;
+
+/*
+ * End-to-end failover through POST /leader-not-responding's handler: ping of
+ * the dead leader, deregistration, election, elastic IP association on the
+ * cloud simulator and the broadcast to stub peer brokers. Before every
+ * invocation a broker with no server behind it is made leader again.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class FailoverBenchmark {
+    private static final String DEAD_LEADER_IP = "127.0.0.250";
+    private static final String DEAD_LEADER_INSTANCE = "i-dead";
+    private static final String REPORT = "{\"currleadBrokerIPAtNode\":\"" + DEAD_LEADER_IP + "\"}";
+
+    @Param({ "3", "10" })
+    public int peerCount;
+
+    private ConfigurableApplicationContext context;
+    private List<HttpServer> stubBrokers;
+    private BrokerRegistrationController controller;
+    private CoordinatorServerService service;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        List<String> peerIps = new ArrayList<>();
+        List<Broker> peers = new ArrayList<>();
+        for (int i = 1; i <= peerCount; i++) {
+            peerIps.add("127.0.0." + (10 + i));
+            peers.add(new Broker("127.0.0." + (10 + i), 8080, i, "i-peer-" + i));
+        }
+        stubBrokers = BenchmarkCoordinator.startStubBrokers(peerIps);
+        context = BenchmarkCoordinator.start(false);
+        controller = context.getBean(BrokerRegistrationController.class);
+        service = context.getBean(CoordinatorServerService.class);
+        // the first registration allocates the elastic IP
+        service.registerInstances(Broker.DEFAULT_CLUSTER, peers).getCompletion().join();
+    }
+
+    @Setup(Level.Invocation)
+    public void makeDeadBrokerLeader() {
+        service.registerInstance(new Broker(DEAD_LEADER_IP, 8080, 0, DEAD_LEADER_INSTANCE));
+        service.associateElasticIpWithLeader(Broker.DEFAULT_CLUSTER, DEAD_LEADER_INSTANCE, DEAD_LEADER_IP);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+        BenchmarkCoordinator.stop(stubBrokers);
+    }
+
+    @Benchmark
+    public FailoverResult handleLeaderNotResponding() {
+        return controller.handleLeaderNotResponding(null, REPORT).join();
+    }
+}
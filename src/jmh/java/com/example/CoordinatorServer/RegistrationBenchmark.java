@@ -0,0 +1,88 @@
+package com.example.CoordinatorServer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/*
+ * Registration through the controller and the service of a booted
+ * coordinator, with and without the durable state log (fsync per group
+ * commit), plus the cached peer-list response. Registrations cycle through a
+ * fixed pool of brokers so the registry does not grow during a run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class RegistrationBenchmark {
+    private static final int POOL_SIZE = 1000;
+    private static final int BATCH_SIZE = 50;
+
+    @Param({ "false", "true" })
+    public boolean durableState;
+
+    private ConfigurableApplicationContext context;
+    private BrokerRegistrationController controller;
+    private CoordinatorServerService service;
+    private RegistryResponseCache registryResponseCache;
+    private Broker[] pool;
+    private List<List<Broker>> batches;
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException {
+        context = BenchmarkCoordinator.start(durableState);
+        controller = context.getBean(BrokerRegistrationController.class);
+        service = context.getBean(CoordinatorServerService.class);
+        registryResponseCache = context.getBean(RegistryResponseCache.class);
+        pool = new Broker[POOL_SIZE];
+        for (int i = 0; i < POOL_SIZE; i++) {
+            pool[i] = BenchmarkCoordinator.broker(i + 1);
+        }
+        batches = new ArrayList<>();
+        for (int from = 0; from < POOL_SIZE; from += BATCH_SIZE) {
+            batches.add(List.of(pool).subList(from, from + BATCH_SIZE));
+        }
+        service.registerInstances(Broker.DEFAULT_CLUSTER, List.of(pool));
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void controllerRegisterBroker() {
+        next = (next + 1) % POOL_SIZE;
+        controller.registerBroker(null, pool[next]);
+    }
+
+    @Benchmark
+    public CloudOperation serviceRegisterInstance() {
+        next = (next + 1) % POOL_SIZE;
+        return service.registerInstance(pool[next]);
+    }
+
+    // one call registers BATCH_SIZE brokers
+    @Benchmark
+    public CloudOperation serviceRegisterInstancesBatch() {
+        next = (next + 1) % batches.size();
+        return service.registerInstances(Broker.DEFAULT_CLUSTER, batches.get(next));
+    }
+
+    @Benchmark
+    public byte[] cachedPeerList() {
+        return registryResponseCache.getPeerList(Broker.DEFAULT_CLUSTER).getBody();
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.CoordinatorServer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/*
+ * BrokerRegistry on its own at 10 to 100k brokers: the lookups behind
+ * findUniqueIdByIpAddress, peer-list building and the copy-on-write cost of a
+ * registration.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RegistryBenchmark {
+
+    @Param({ "10", "1000", "100000" })
+    public int brokerCount;
+
+    private BrokerRegistry brokerRegistry;
+    private String[] ipAddresses;
+    private String leaderIp;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        brokerRegistry = new BrokerRegistry();
+        List<Broker> brokers = new ArrayList<>(brokerCount);
+        ipAddresses = new String[brokerCount];
+        for (int i = 0; i < brokerCount; i++) {
+            brokers.add(BenchmarkCoordinator.broker(i + 1));
+            ipAddresses[i] = BenchmarkCoordinator.ipAddress(i + 1);
+        }
+        brokerRegistry.registerAll(Broker.DEFAULT_CLUSTER, brokers);
+        leaderIp = ipAddresses[brokerCount - 1];
+    }
+
+    @Benchmark
+    public Integer findUniqueIdByIpAddress() {
+        next = (next + 1) % brokerCount;
+        return brokerRegistry.findUniqueIdByIpAddress(Broker.DEFAULT_CLUSTER, ipAddresses[next]);
+    }
+
+    @Benchmark
+    public List<String> peerIpAddresses() {
+        return brokerRegistry.snapshot(Broker.DEFAULT_CLUSTER).peerIpAddresses(leaderIp);
+    }
+
+    // re-registers an existing broker, so the registry size stays constant
+    @Benchmark
+    public long registerExisting() {
+        next = (next + 1) % brokerCount;
+        return brokerRegistry.register(BenchmarkCoordinator.broker(next + 1));
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.CoordinatorServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/*
+ * Load test for blocking request handlers on platform versus virtual threads.
+ * Each invocation sends stormSize /register-broker requests and stormSize
+ * /fetch-leadBroker-elasticIP lookups at once over HTTP and waits for all of
+ * them. The registrations carry no private IP, so each one needs a describe
+ * call that the cloud simulator delays by cloudLatencyMs. Those calls are
+ * queued on the cloud operations pipeline and the registrations answer 202
+ * right away, so neither kind of thread should leave the lookups queued
+ * behind them; when request threads blocked on the describe call, platform
+ * threads held all 200 of Tomcat's threads. The virtualThreads=true run needs
+ * Java 21.
+ *
+ * The handlers print the whole registry on every registration, so console
+ * output is discarded during the run; otherwise it would measure the terminal
+ * rather than the threading.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class RequestStormBenchmark {
+
+    @Param({ "false", "true" })
+    public boolean virtualThreads;
+
+    @Param({ "400" })
+    public int stormSize;
+
+    @Param({ "200" })
+    public int cloudLatencyMs;
+
+    private ConfigurableApplicationContext context;
+    private PrintStream originalOut;
+    private HttpClient httpClient;
+    private URI registerUri;
+    private URI lookupUri;
+
+    @Setup
+    public void setUp() throws IOException {
+        if (virtualThreads && Runtime.version().feature() < 21) {
+            throw new IllegalStateException("virtualThreads=true needs Java 21, running on " + Runtime.version());
+        }
+        // the simulator only describes instances it runs
+        List<String> instances = new ArrayList<>(stormSize);
+        for (int i = 1; i <= stormSize; i++) {
+            instances.add("i-storm-" + i + ":" + BenchmarkCoordinator.ipAddress(i));
+        }
+        context = BenchmarkCoordinator.start(false,
+                "--spring.threads.virtual.enabled=" + virtualThreads,
+                "--coordinator.simulator.latency-ms=" + cloudLatencyMs,
+                "--coordinator.simulator.instances=" + String.join(",", instances),
+                // every registration misses the cache and waits on the cloud
+                "--coordinator.instance-cache.ttl-ms=0");
+        String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+        registerUri = URI.create(baseUrl + "/register-broker");
+        lookupUri = URI.create(baseUrl + "/fetch-leadBroker-elasticIP");
+        httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        originalOut = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    @TearDown
+    public void tearDown() {
+        System.setOut(originalOut);
+        context.close();
+    }
+
+    @Benchmark
+    public int registrationStormWithLookups() {
+        List<CompletableFuture<HttpResponse<Void>>> responses = new ArrayList<>(2 * stormSize);
+        for (int i = 1; i <= stormSize; i++) {
+            String broker = "{\"port\":8080,\"uniqueId\":" + i + ",\"ec2instanceID\":\"i-storm-" + i + "\"}";
+            responses.add(httpClient.sendAsync(HttpRequest.newBuilder(registerUri)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(broker))
+                    .build(), HttpResponse.BodyHandlers.discarding()));
+            responses.add(httpClient.sendAsync(HttpRequest.newBuilder(lookupUri).GET().build(),
+                    HttpResponse.BodyHandlers.discarding()));
+        }
+        int failed = 0;
+        for (CompletableFuture<HttpResponse<Void>> response : responses) {
+            if (response.join().statusCode() / 100 != 2) {
+                failed++;
+            }
+        }
+        if (failed > 0) {
+            throw new IllegalStateException(failed + " of " + responses.size() + " requests failed");
+        }
+        return responses.size();
+    }
+}
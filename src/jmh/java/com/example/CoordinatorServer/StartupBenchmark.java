@@ -0,0 +1,111 @@
+package com.example.CoordinatorServer;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.URL;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/*
+ * Cold start: every invocation launches a new coordinator JVM and measures
+ * the time until it answers HTTP, i.e. what a restart costs before brokers
+ * can reach the coordinator again.
+ *
+ *   default     the classpath as it is, all defaults
+ *   fast-start  the same classpath with the fast-start profile
+ *   aot-cds     build/cds/coordinator.jar (./gradlew cdsArchive) with its
+ *               AOT-generated context and class data sharing archive
+ *
+ * Every run is on a fresh temporary state directory with the cloud simulator.
+ * -Dcoordinator.startup.cds-dir overrides where the CDS layout is looked for.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class StartupBenchmark {
+    private static final long READY_TIMEOUT_MILLIS = 120_000;
+
+    @Param({ "default", "fast-start", "aot-cds" })
+    public String mode;
+
+    private ProcessBuilder launch;
+    private int port;
+    private Process coordinator;
+
+    @Setup(Level.Invocation)
+    public void prepare() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        String java = ProcessHandle.current().info().command().orElse("java");
+        List<String> command = new ArrayList<>(List.of(java));
+        if (mode.equals("aot-cds")) {
+            File cdsDir = new File(System.getProperty("coordinator.startup.cds-dir", "build/cds"));
+            if (!new File(cdsDir, "application.jsa").isFile()) {
+                throw new IllegalStateException("No CDS archive in " + cdsDir + "; run ./gradlew cdsArchive first");
+            }
+            command.addAll(List.of("-XX:SharedArchiveFile=application.jsa", "-Xlog:cds=off",
+                    "-Dspring.aot.enabled=true", "-jar", "coordinator.jar", "--spring.profiles.active=fast-start"));
+            launch = new ProcessBuilder().directory(cdsDir);
+        } else {
+            command.addAll(List.of("-cp", System.getProperty("java.class.path"),
+                    CoordinatorServerApplication.class.getName(), "--spring.profiles.active=" + mode));
+            launch = new ProcessBuilder();
+        }
+        command.addAll(List.of(
+                "--server.port=" + port,
+                "--coordinator.cloud.provider=simulator",
+                "--coordinator.state.dir=" + Files.createTempDirectory("coordinator-startup"),
+                "--logging.level.root=WARN"));
+        launch.command(command).redirectErrorStream(true).redirectOutput(ProcessBuilder.Redirect.DISCARD);
+    }
+
+    @Benchmark
+    public int startUntilReady() throws IOException, InterruptedException {
+        long deadline = System.currentTimeMillis() + READY_TIMEOUT_MILLIS;
+        coordinator = launch.start();
+        URL url = URI.create("http://127.0.0.1:" + port + "/helloConfig").toURL();
+        while (System.currentTimeMillis() < deadline) {
+            if (!coordinator.isAlive()) {
+                throw new IllegalStateException("Coordinator exited with " + coordinator.exitValue());
+            }
+            try {
+                HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+                connection.setConnectTimeout(100);
+                connection.setReadTimeout(1000);
+                int status = connection.getResponseCode();
+                connection.disconnect();
+                return status;
+            } catch (IOException notListeningYet) {
+                Thread.sleep(5);
+            }
+        }
+        throw new IllegalStateException("Coordinator not ready within " + READY_TIMEOUT_MILLIS + " ms");
+    }
+
+    @TearDown(Level.Invocation)
+    public void stop() throws InterruptedException {
+        if (coordinator != null) {
+            coordinator.destroy();
+            if (!coordinator.waitFor(10, TimeUnit.SECONDS)) {
+                coordinator.destroyForcibly().waitFor();
+            }
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.CoordinatorServer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/*
+ * Cost of rebuilding a /topology body after a registry or leadership change,
+ * JSON against the binary form. Setup prints the size of both, which is what
+ * a client pays on every refresh.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TopologyBenchmark {
+
+    @Param({ "10", "1000" })
+    public int brokerCount;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private BrokerRegistry.Snapshot registry;
+    private LeadershipView leadership;
+
+    @Setup
+    public void setUp() throws JsonProcessingException {
+        BrokerRegistry brokerRegistry = new BrokerRegistry();
+        List<Broker> brokers = new ArrayList<>(brokerCount);
+        for (int i = 0; i < brokerCount; i++) {
+            brokers.add(BenchmarkCoordinator.broker(i + 1));
+        }
+        brokerRegistry.registerAll(Broker.DEFAULT_CLUSTER, brokers);
+        registry = brokerRegistry.snapshot(Broker.DEFAULT_CLUSTER);
+        Broker leader = registry.getBrokers().lastEntry().getValue();
+        leadership = new LeadershipView(Broker.DEFAULT_CLUSTER, 1, "203.0.113.1", leader.getIpAddress(),
+                leader.getEC2instanceID());
+        Topology topology = Topology.of(registry, leadership, Topology.ReadPolicy.PEERS);
+        System.out.println("topology of " + brokerCount + " brokers: "
+                + objectMapper.writeValueAsBytes(topology).length + " bytes as JSON, "
+                + topology.toBinary().length + " bytes binary");
+    }
+
+    @Benchmark
+    public byte[] json() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(Topology.of(registry, leadership, Topology.ReadPolicy.PEERS));
+    }
+
+    @Benchmark
+    public byte[] binary() {
+        return Topology.of(registry, leadership, Topology.ReadPolicy.PEERS).toBinary();
+    }
+}
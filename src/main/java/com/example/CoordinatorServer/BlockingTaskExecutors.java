@@ -0,0 +1,73 @@
+package com.example.CoordinatorServer;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.stereotype.Component;
+
+/*
+ * Executors for work that blocks on I/O: calls to brokers, coordinator
+ * replicas and the cloud provider, and failovers that wait on all of them.
+ *
+ * spring.threads.virtual.enabled=true on Java 21 moves Tomcat's request
+ * handling to virtual threads; the same switch makes every executor from here
+ * start a virtual thread per task. Otherwise they are cached pools of daemon
+ * platform threads.
+ */
+@Component
+public class BlockingTaskExecutors {
+    private final boolean virtual;
+
+    public BlockingTaskExecutors(Environment environment) {
+        this.virtual = Threading.VIRTUAL.isActive(environment);
+        if (virtual) {
+            System.out.println("Request handling and blocking coordinator tasks run on virtual threads.");
+        }
+    }
+
+    public boolean isVirtual() {
+        return virtual;
+    }
+
+    // threads are named threadNamePrefix followed by a counter
+    public ExecutorService newExecutor(String threadNamePrefix) {
+        if (virtual) {
+            // no core threads and no keep-alive, so every task gets a fresh virtual thread
+            return new ThreadPoolExecutor(0, Integer.MAX_VALUE, 0, TimeUnit.SECONDS, new SynchronousQueue<>(),
+                    threadFactory(threadNamePrefix));
+        }
+        return Executors.newCachedThreadPool(threadFactory(threadNamePrefix));
+    }
+
+    /*
+     * Runs at most maxThreads tasks at a time and queues the rest. Idle threads
+     * are let go after a minute, so a quiet executor holds none.
+     */
+    public ExecutorService newBoundedExecutor(String threadNamePrefix, int maxThreads) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(maxThreads, maxThreads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), threadFactory(threadNamePrefix));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    private ThreadFactory threadFactory(String threadNamePrefix) {
+        if (virtual) {
+            return new VirtualThreadTaskExecutor(threadNamePrefix).getVirtualThreadFactory();
+        }
+        AtomicInteger threadCount = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, threadNamePrefix + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
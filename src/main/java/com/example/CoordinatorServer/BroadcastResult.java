@@ -0,0 +1,60 @@
+package com.example.CoordinatorServer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Summary of one fan-out of a message to peer broker nodes: which peers
+ * acknowledged it, which ran out of time and which failed with an error.
+ */
+public class BroadcastResult {
+    private final List<String> acked = new ArrayList<>();
+    private final List<String> timedOut = new ArrayList<>();
+    private final Map<String, String> failed = new LinkedHashMap<>();
+    private long elapsedMillis;
+
+    void addAcked(String ipAddress) {
+        acked.add(ipAddress);
+    }
+
+    void addTimedOut(String ipAddress) {
+        timedOut.add(ipAddress);
+    }
+
+    void addFailed(String ipAddress, String reason) {
+        failed.put(ipAddress, reason);
+    }
+
+    void setElapsedMillis(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public List<String> getAcked() {
+        return Collections.unmodifiableList(acked);
+    }
+
+    public List<String> getTimedOut() {
+        return Collections.unmodifiableList(timedOut);
+    }
+
+    public Map<String, String> getFailed() {
+        return Collections.unmodifiableMap(failed);
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public boolean isComplete() {
+        return timedOut.isEmpty() && failed.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "acked=" + acked + ", timedOut=" + timedOut + ", failed=" + failed.keySet() + ", elapsed="
+                + elapsedMillis + " ms";
+    }
+}
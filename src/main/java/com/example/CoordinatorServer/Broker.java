@@ -1,10 +1,23 @@
 package com.example.CoordinatorServer;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/*
+ * A broker node as it registers with the coordinator. uniqueId is unique
+ * within the broker's cluster; brokers that do not name a cluster belong to
+ * DEFAULT_CLUSTER. A broker may report its current load with its
+ * registration; the load is handed to the BrokerLoadTracker and is not part of
+ * the registry.
+ */
 public class Broker {
+    public static final String DEFAULT_CLUSTER = "default";
+
+    private String clusterId;
     private String ipAddress;
     private int port;
     private int uniqueId;
     private String ec2InstanceID;
+    private BrokerLoad load;
 
     public Broker() {
     }
@@ -16,6 +29,19 @@ public class Broker {
         this.ec2InstanceID = ec2InstanceID;
     }
 
+    public Broker(String clusterId, String ipAddress, int port, int uniqueId, String ec2InstanceID) {
+        this(ipAddress, port, uniqueId, ec2InstanceID);
+        this.clusterId = clusterId;
+    }
+
+    public String getClusterId() {
+        return clusterId == null ? DEFAULT_CLUSTER : clusterId;
+    }
+
+    public void setClusterId(String clusterId) {
+        this.clusterId = clusterId;
+    }
+
     public String getIpAddress() {
         return ipAddress;
     }
@@ -47,4 +73,19 @@ public class Broker {
     public void setEC2instanceID(String ec2InstanceID) {
         this.ec2InstanceID = ec2InstanceID;
     }
+
+    // a copy of the registration in the given cluster, without its load
+    Broker copyIn(String clusterId) {
+        return new Broker(clusterId, ipAddress, port, uniqueId, ec2InstanceID);
+    }
+
+    // only read from registrations, never written back out
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
+    public BrokerLoad getLoad() {
+        return load;
+    }
+
+    public void setLoad(BrokerLoad load) {
+        this.load = load;
+    }
 }
@@ -0,0 +1,40 @@
+package com.example.CoordinatorServer;
+
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+public class BrokerHealthController {
+    private final LeaderHeartbeatMonitor leaderHeartbeatMonitor;
+    private final SuccessionPlan successionPlan;
+    private final BrokerLoadTracker brokerLoadTracker;
+
+    public BrokerHealthController(LeaderHeartbeatMonitor leaderHeartbeatMonitor, SuccessionPlan successionPlan,
+            BrokerLoadTracker brokerLoadTracker) {
+        this.leaderHeartbeatMonitor = leaderHeartbeatMonitor;
+        this.successionPlan = successionPlan;
+        this.brokerLoadTracker = brokerLoadTracker;
+    }
+
+    // phi suspicion level per broker private IP, as seen by the heartbeat monitor
+    @GetMapping({ "/broker-health", "/clusters/{clusterId}/broker-health" })
+    public Map<String, Double> getBrokerHealth(@PathVariable(required = false) String clusterId) {
+        return leaderHeartbeatMonitor.getSuspicionLevels(clusterId == null ? Broker.DEFAULT_CLUSTER : clusterId);
+    }
+
+    // aggregated load reported by each broker, by uniqueId
+    @GetMapping({ "/broker-load", "/clusters/{clusterId}/broker-load" })
+    public Map<Integer, BrokerLoad> getBrokerLoad(@PathVariable(required = false) String clusterId) {
+        return brokerLoadTracker.getLoads(clusterId == null ? Broker.DEFAULT_CLUSTER : clusterId);
+    }
+
+    // brokers in the order they would take over as leader, with their last standby check
+    @GetMapping({ "/succession-plan", "/clusters/{clusterId}/succession-plan" })
+    public List<SuccessionPlan.Standby> getSuccessionPlan(@PathVariable(required = false) String clusterId) {
+        return successionPlan.getStandbys(clusterId == null ? Broker.DEFAULT_CLUSTER : clusterId);
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.CoordinatorServer;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+/*
+ * Checks whether a broker node answers its status endpoint, using a
+ * RestTemplate with tight connect and read timeouts.
+ */
+@Component
+public class BrokerHealthProbe {
+    private final RestTemplate restTemplate;
+    private final String statusEndpoint;
+
+    public BrokerHealthProbe(@Qualifier("heartbeatRestTemplate") RestTemplate restTemplate,
+            @Value("${coordinator.heartbeat.status-endpoint::8080/leadBroker-status}") String statusEndpoint) {
+        this.restTemplate = restTemplate;
+        this.statusEndpoint = statusEndpoint;
+    }
+
+    /*
+     * Returns the round-trip time in nanoseconds, or -1 if the broker did not
+     * answer successfully within the timeout.
+     */
+    public long probe(String brokerPrivateIp) {
+        long startNanos = System.nanoTime();
+        try {
+            restTemplate.getForObject("http://" + brokerPrivateIp + statusEndpoint, String.class);
+            return System.nanoTime() - startNanos;
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+
+    public boolean pingLeader(String leaderPrivateIp) {
+        System.out.println("Coordinator Server Pinging current leader broker node to check health status...\n");
+        boolean isLeaderResponsive = probe(leaderPrivateIp) >= 0;
+        if (!isLeaderResponsive) {
+            System.out.println(
+                    "current lead broker is verified by Coordinator Server to have failed and is not responding \n");
+        }
+        return isLeaderResponsive;
+    }
+}
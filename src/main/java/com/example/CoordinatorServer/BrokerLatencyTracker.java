@@ -0,0 +1,39 @@
+package com.example.CoordinatorServer;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.stereotype.Component;
+
+/*
+ * Exponentially weighted moving average of the status-check round trip to each
+ * broker, keyed by broker cluster and private IP. Fed by the succession plan
+ * and heartbeat probes; a broker's entry is dropped when it deregisters, so an
+ * IP that is reused later starts unmeasured.
+ */
+@Component
+public class BrokerLatencyTracker {
+    private static final double ALPHA = 0.3;
+
+    private final Map<String, Map<String, Double>> latencyMillisByCluster = new ConcurrentHashMap<>();
+
+    public void record(String clusterId, String ipAddress, long roundTripNanos) {
+        double sampleMillis = roundTripNanos / 1_000_000.0;
+        latencyMillisByCluster.computeIfAbsent(clusterId, key -> new ConcurrentHashMap<>())
+                .merge(ipAddress, sampleMillis, (previous, sample) -> previous + ALPHA * (sample - previous));
+    }
+
+    // returns Double.POSITIVE_INFINITY for brokers that have not been measured
+    public double getLatencyMillis(String clusterId, String ipAddress) {
+        Map<String, Double> latencies = latencyMillisByCluster.get(clusterId);
+        Double latency = latencies == null || ipAddress == null ? null : latencies.get(ipAddress);
+        return latency == null ? Double.POSITIVE_INFINITY : latency;
+    }
+
+    public void forget(String clusterId, String ipAddress) {
+        Map<String, Double> latencies = latencyMillisByCluster.get(clusterId);
+        if (latencies != null && ipAddress != null) {
+            latencies.remove(ipAddress);
+        }
+    }
+}
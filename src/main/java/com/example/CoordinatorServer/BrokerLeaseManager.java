@@ -0,0 +1,223 @@
+package com.example.CoordinatorServer;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/*
+ * Lease-based broker membership (coordinator.lease.enabled=true). Every
+ * registered broker holds a lease of coordinator.lease.ttl-ms that it renews
+ * through POST /clusters/{clusterId}/broker-heartbeat/{uniqueId}. A broker that
+ * stops renewing, e.g. because it crashed without deregistering, is evicted
+ * from its cluster's registry once its lease runs out, and its instance is
+ * terminated if coordinator.lease.terminate-on-expiry is set. An expired leader
+ * is handed to the failover coordinator instead, which verifies it and elects
+ * a successor; its instance is terminated under the same setting.
+ *
+ * Renewing is a single volatile write. Lease deadlines sit in a hashed timing
+ * wheel; when one comes up, a lease that was renewed in the meantime is simply
+ * put back at its new deadline.
+ *
+ * Leases are kept by the coordinator leader only and are not replicated. A
+ * coordinator that becomes leader, or restarts, grants every registered broker
+ * a fresh lease, so no broker is evicted for a heartbeat that went elsewhere.
+ */
+@Component
+public class BrokerLeaseManager {
+
+    private final CoordinatorServerService coordinatorServerService;
+    private final BrokerRegistry brokerRegistry;
+    private final LeaderFailoverCoordinator leaderFailoverCoordinator;
+    private final RaftNode raftNode;
+    private final boolean enabled;
+    private final long ttlNanos;
+    private final boolean terminateOnExpiry;
+
+    // keyed by "<cluster>/<uniqueId>"
+    private final Map<String, Lease> leases = new ConcurrentHashMap<>();
+    private final HashedTimingWheel<Lease> timingWheel;
+    private ScheduledExecutorService scheduler;
+
+    public BrokerLeaseManager(CoordinatorServerService coordinatorServerService, BrokerRegistry brokerRegistry,
+            LeaderFailoverCoordinator leaderFailoverCoordinator, RaftNode raftNode,
+            @Value("${coordinator.lease.enabled:false}") boolean enabled,
+            @Value("${coordinator.lease.ttl-ms:10000}") long ttlMillis,
+            @Value("${coordinator.lease.tick-ms:100}") long tickMillis,
+            @Value("${coordinator.lease.wheel-size:512}") int wheelSize,
+            @Value("${coordinator.lease.terminate-on-expiry:false}") boolean terminateOnExpiry) {
+        this.coordinatorServerService = coordinatorServerService;
+        this.brokerRegistry = brokerRegistry;
+        this.leaderFailoverCoordinator = leaderFailoverCoordinator;
+        this.raftNode = raftNode;
+        this.enabled = enabled;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        this.terminateOnExpiry = terminateOnExpiry;
+        this.timingWheel = new HashedTimingWheel<>("broker-lease-wheel", tickMillis, wheelSize, this::onExpired);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            System.out.println("Broker leases are disabled; brokers stay registered until they deregister.");
+            return;
+        }
+        timingWheel.start();
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "broker-lease-sync");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long syncMillis = Math.max(100, TimeUnit.NANOSECONDS.toMillis(ttlNanos) / 4);
+        scheduler.scheduleWithFixedDelay(this::syncWithRegistry, 0, syncMillis, TimeUnit.MILLISECONDS);
+        System.out.println("Broker leases are enabled with a TTL of " + TimeUnit.NANOSECONDS.toMillis(ttlNanos) + " ms.");
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            timingWheel.stop();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public long getTtlMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(ttlNanos);
+    }
+
+    /*
+     * Renews the broker's lease. Returns false if the broker is not registered
+     * in the cluster, in which case it should register again.
+     */
+    public boolean renew(String clusterId, int uniqueId) {
+        Lease lease = leases.get(Lease.key(clusterId, uniqueId));
+        if (lease != null) {
+            lease.expiresAtNanos = System.nanoTime() + ttlNanos;
+            return true;
+        }
+        if (brokerRegistry.get(clusterId, uniqueId) == null) {
+            return false;
+        }
+        grant(clusterId, List.of(uniqueId));
+        return true;
+    }
+
+    // starts leases for newly registered brokers of the cluster
+    public void grant(String clusterId, Collection<Integer> uniqueIds) {
+        if (!enabled) {
+            return;
+        }
+        long expiresAtNanos = System.nanoTime() + ttlNanos;
+        for (Integer uniqueId : uniqueIds) {
+            Lease lease = new Lease(clusterId, uniqueId, expiresAtNanos);
+            Lease existing = leases.putIfAbsent(lease.key, lease);
+            if (existing == null) {
+                timingWheel.schedule(lease, expiresAtNanos);
+            } else {
+                existing.expiresAtNanos = expiresAtNanos;
+            }
+        }
+    }
+
+    /*
+     * Grants leases to registered brokers that have none (registered through a
+     * replica, restored on boot, or inherited by a new coordinator leader) and
+     * drops leases of brokers that are gone. Followers hold no leases.
+     */
+    private void syncWithRegistry() {
+        try {
+            if (!raftNode.isLeader()) {
+                leases.clear();
+                return;
+            }
+            leases.values().removeIf(lease -> brokerRegistry.get(lease.clusterId, lease.uniqueId) == null);
+            for (String clusterId : brokerRegistry.clusterIds()) {
+                List<Integer> unleased = new ArrayList<>();
+                for (Integer uniqueId : brokerRegistry.snapshot(clusterId).getBrokers().keySet()) {
+                    if (!leases.containsKey(Lease.key(clusterId, uniqueId))) {
+                        unleased.add(uniqueId);
+                    }
+                }
+                grant(clusterId, unleased);
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Error occurred while syncing broker leases: " + e.getMessage());
+        }
+    }
+
+    // runs on the timing wheel thread with every lease whose deadline came up in one tick
+    private void onExpired(List<Lease> due) {
+        long now = System.nanoTime();
+        Map<String, List<Integer>> expiredIdsByCluster = new TreeMap<>();
+        for (Lease lease : due) {
+            if (leases.get(lease.key) != lease) {
+                continue; // deregistered or replaced since
+            }
+            if (lease.expiresAtNanos - now > 0) {
+                timingWheel.schedule(lease, lease.expiresAtNanos);
+            } else if (leases.remove(lease.key, lease)) {
+                expiredIdsByCluster.computeIfAbsent(lease.clusterId, key -> new ArrayList<>()).add(lease.uniqueId);
+            }
+        }
+        if (expiredIdsByCluster.isEmpty() || !raftNode.isLeader()) {
+            return;
+        }
+        expiredIdsByCluster.forEach(this::evict);
+    }
+
+    private void evict(String clusterId, List<Integer> expiredIds) {
+        String leaderIp = coordinatorServerService.getleadEC2BrokerPrivateIP(clusterId);
+        List<Integer> evicted = new ArrayList<>();
+        for (Integer uniqueId : expiredIds) {
+            Broker broker = brokerRegistry.get(clusterId, uniqueId);
+            if (broker == null) {
+                continue;
+            }
+            if (broker.getIpAddress() != null && broker.getIpAddress().equals(leaderIp)) {
+                System.out.println("Lease of lead broker " + leaderIp + " of cluster " + clusterId
+                        + " expired. Coordinator Server is verifying it.");
+                leaderFailoverCoordinator.reportLeaderFailure(clusterId, leaderIp, true, terminateOnExpiry);
+            } else {
+                evicted.add(uniqueId);
+            }
+        }
+        if (!evicted.isEmpty()) {
+            System.out.println("Leases of broker nodes " + evicted + " of cluster " + clusterId
+                    + " expired. Evicting them from the registry.");
+            coordinatorServerService.unregisterInstances(clusterId, evicted, terminateOnExpiry);
+        }
+    }
+
+    private static final class Lease {
+        final String clusterId;
+        final int uniqueId;
+        final String key;
+        volatile long expiresAtNanos;
+
+        Lease(String clusterId, int uniqueId, long expiresAtNanos) {
+            this.clusterId = clusterId;
+            this.uniqueId = uniqueId;
+            this.key = key(clusterId, uniqueId);
+            this.expiresAtNanos = expiresAtNanos;
+        }
+
+        static String key(String clusterId, int uniqueId) {
+            return clusterId + "/" + uniqueId;
+        }
+    }
+}
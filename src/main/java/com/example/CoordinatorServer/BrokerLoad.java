@@ -0,0 +1,55 @@
+package com.example.CoordinatorServer;
+
+/*
+ * Load a broker reports with its registration or heartbeat, and the decayed
+ * aggregate the BrokerLoadTracker keeps of those reports. Metrics a broker
+ * does not report are null.
+ */
+public class BrokerLoad {
+    // messages waiting in the broker's queues
+    private Double queueDepth;
+    // 0 (idle) to 1 (all cores busy)
+    private Double cpuUtilization;
+    // messages in plus out per second
+    private Double messageRate;
+    // when the aggregate was last updated; not read from reports
+    private long updatedAtMillis;
+
+    public BrokerLoad() {
+    }
+
+    public BrokerLoad(Double queueDepth, Double cpuUtilization, Double messageRate, long updatedAtMillis) {
+        this.queueDepth = queueDepth;
+        this.cpuUtilization = cpuUtilization;
+        this.messageRate = messageRate;
+        this.updatedAtMillis = updatedAtMillis;
+    }
+
+    public Double getQueueDepth() {
+        return queueDepth;
+    }
+
+    public void setQueueDepth(Double queueDepth) {
+        this.queueDepth = queueDepth;
+    }
+
+    public Double getCpuUtilization() {
+        return cpuUtilization;
+    }
+
+    public void setCpuUtilization(Double cpuUtilization) {
+        this.cpuUtilization = cpuUtilization;
+    }
+
+    public Double getMessageRate() {
+        return messageRate;
+    }
+
+    public void setMessageRate(Double messageRate) {
+        this.messageRate = messageRate;
+    }
+
+    public long getUpdatedAtMillis() {
+        return updatedAtMillis;
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.CoordinatorServer;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/*
+ * Rolling aggregate of the load every broker reports, per cluster and
+ * uniqueId. Each metric is an exponentially weighted moving average whose
+ * weight follows the time since the previous report, so a sample counts for
+ * half as much after coordinator.load.half-life-ms however often the broker
+ * reports. A broker that has not reported for coordinator.load.stale-after-ms
+ * counts as unmeasured.
+ *
+ * Loads are kept by the coordinator replica that receives the reports and are
+ * not replicated; a new coordinator leader learns them from the next round of
+ * heartbeats.
+ */
+@Component
+public class BrokerLoadTracker {
+    // a report never counts for less than this, even if it follows the previous one within the same millisecond
+    private static final double MIN_WEIGHT = 0.05;
+
+    private final double halfLifeMillis;
+    private final long staleAfterMillis;
+    private final Map<String, Map<Integer, BrokerLoad>> loadsByCluster = new ConcurrentHashMap<>();
+
+    public BrokerLoadTracker(@Value("${coordinator.load.half-life-ms:10000}") long halfLifeMillis,
+            @Value("${coordinator.load.stale-after-ms:60000}") long staleAfterMillis) {
+        this.halfLifeMillis = halfLifeMillis;
+        this.staleAfterMillis = staleAfterMillis;
+    }
+
+    public void record(String clusterId, int uniqueId, BrokerLoad report) {
+        long now = System.currentTimeMillis();
+        Map<Integer, BrokerLoad> loads = loadsByCluster.computeIfAbsent(clusterId, key -> new ConcurrentHashMap<>());
+        loads.compute(uniqueId, (key, current) -> {
+            if (current == null || now - current.getUpdatedAtMillis() > staleAfterMillis) {
+                return new BrokerLoad(report.getQueueDepth(), report.getCpuUtilization(), report.getMessageRate(),
+                        now);
+            }
+            double elapsed = Math.max(0, now - current.getUpdatedAtMillis());
+            double weight = Math.max(MIN_WEIGHT, 1 - Math.pow(0.5, elapsed / halfLifeMillis));
+            return new BrokerLoad(decay(current.getQueueDepth(), report.getQueueDepth(), weight),
+                    decay(current.getCpuUtilization(), report.getCpuUtilization(), weight),
+                    decay(current.getMessageRate(), report.getMessageRate(), weight), now);
+        });
+    }
+
+    // the broker's aggregated load, or null if it has not reported recently
+    public BrokerLoad getLoad(String clusterId, int uniqueId) {
+        Map<Integer, BrokerLoad> loads = loadsByCluster.get(clusterId);
+        BrokerLoad load = loads == null ? null : loads.get(uniqueId);
+        if (load == null || System.currentTimeMillis() - load.getUpdatedAtMillis() > staleAfterMillis) {
+            return null;
+        }
+        return load;
+    }
+
+    // aggregated load of every broker of the cluster that has reported, by uniqueId
+    public Map<Integer, BrokerLoad> getLoads(String clusterId) {
+        Map<Integer, BrokerLoad> loads = loadsByCluster.get(clusterId);
+        return loads == null ? Map.of() : new TreeMap<>(loads);
+    }
+
+    public void forget(String clusterId, int uniqueId) {
+        Map<Integer, BrokerLoad> loads = loadsByCluster.get(clusterId);
+        if (loads != null) {
+            loads.remove(uniqueId);
+        }
+    }
+
+    // a metric the broker stopped reporting keeps its last value
+    private static Double decay(Double previous, Double sample, double weight) {
+        if (sample == null) {
+            return previous;
+        }
+        if (previous == null) {
+            return sample;
+        }
+        return previous + weight * (sample - previous);
+    }
+}
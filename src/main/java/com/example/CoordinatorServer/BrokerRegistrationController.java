@@ -1,32 +1,54 @@
 package com.example.CoordinatorServer;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import org.json.JSONObject;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
-import org.springframework.http.HttpEntity;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RestController;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.web.context.request.WebRequest;
+
+import jakarta.servlet.http.HttpServletResponse;
 
+/*
+ * Broker registration and lead broker lookup. Every endpoint exists twice:
+ * under /clusters/{clusterId} for the given broker cluster, and at its
+ * original path for the default cluster (or, when registering, for the
+ * cluster the brokers name themselves).
+ */
 @RestController
 public class BrokerRegistrationController {
     private final CoordinatorServerService coordinatorServerService;
-    private final RestTemplate restTemplate = new RestTemplate();
-    private final Map<Integer, Broker> brokerRegistry = new HashMap<>();
+    private final BrokerRegistry brokerRegistry;
+    private final LeaderFailoverCoordinator leaderFailoverCoordinator;
+    private final BrokerLeaseManager brokerLeaseManager;
+    private final RegistryResponseCache registryResponseCache;
+    private final BrokerLoadTracker brokerLoadTracker;
 
     @Autowired
-    public BrokerRegistrationController(CoordinatorServerService coordinatorServerService) {
+    public BrokerRegistrationController(CoordinatorServerService coordinatorServerService,
+            BrokerRegistry brokerRegistry, LeaderFailoverCoordinator leaderFailoverCoordinator,
+            BrokerLeaseManager brokerLeaseManager, RegistryResponseCache registryResponseCache,
+            BrokerLoadTracker brokerLoadTracker) {
         this.coordinatorServerService = coordinatorServerService;
+        this.brokerRegistry = brokerRegistry;
+        this.leaderFailoverCoordinator = leaderFailoverCoordinator;
+        this.brokerLeaseManager = brokerLeaseManager;
+        this.registryResponseCache = registryResponseCache;
+        this.brokerLoadTracker = brokerLoadTracker;
         System.out.println("The Coordinator Server has started execution. \n");
 
     }
@@ -36,154 +58,237 @@ public class BrokerRegistrationController {
         return "Hello, World! Coordinator service is up & running!";
     }
 
-    @PostMapping("/register-broker")
-    public void registerBroker(@RequestBody Broker broker) {
-        System.out.println("Existing Broker Registry at Configuration Server: ");
-        System.out.println(brokerRegistry);
-        brokerRegistry.put(broker.getUniqueId(), broker);
+    // every broker cluster with its size and current leadership
+    @GetMapping("/clusters")
+    public List<Map<String, Object>> getClusters() {
+        List<Map<String, Object>> clusters = new ArrayList<>();
+        for (String clusterId : coordinatorServerService.getClusterIds()) {
+            Map<String, Object> cluster = new LinkedHashMap<>();
+            cluster.put("clusterId", clusterId);
+            cluster.put("brokerCount", brokerRegistry.snapshot(clusterId).size());
+            cluster.put("leadership", coordinatorServerService.getLeadership(clusterId));
+            clusters.add(cluster);
+        }
+        return clusters;
+    }
 
-        coordinatorServerService.registerInstance(broker.getEC2instanceID(), broker.getUniqueId());
+    /*
+     * 200 once the broker is registered. A broker that did not send its
+     * private IP is registered once the cloud provider has looked it up, off
+     * the request thread; the answer is then 202 with the ID of that cloud
+     * operation, which can be followed at /cloud-operations/{id}.
+     */
+    @PostMapping({ "/register-broker", "/clusters/{clusterId}/register-broker" })
+    public ResponseEntity<Map<String, Object>> registerBroker(@PathVariable(required = false) String clusterId,
+            @RequestBody Broker broker) {
+        if (clusterId != null) {
+            broker.setClusterId(clusterId);
+        }
+        String cluster = broker.getClusterId();
+        System.out.println("Existing Broker Registry of cluster " + cluster + " at Configuration Server: ");
+        System.out.println(brokerRegistry.snapshot(cluster).getBrokers());
+
+        CloudOperation operation = coordinatorServerService.registerInstance(broker);
+        if (broker.getIpAddress() == null) {
+            operation.getCompletion().thenRun(() -> registered(cluster, List.of(broker)));
+            System.out.println("Broker node with uniqueID " + broker.getUniqueId()
+                    + " will be registered once its private IP is known (cloud operation " + operation.getId() + ")");
+            return ResponseEntity.accepted().body(Map.of("cloudOperationId", operation.getId()));
+        }
+        registered(cluster, List.of(broker));
         System.out.println(
                 "Broker node with uniqueID " + broker.getUniqueId() + " has registered with Coordinator Server");
-        System.out.println(brokerRegistry);
+        System.out.println(brokerRegistry.snapshot(cluster).getBrokers());
+        return ResponseEntity.ok().build();
+    }
 
+    /*
+     * Registers many brokers of one cluster in one request, e.g. a whole
+     * autoscaling group launch. Returns the registered uniqueIds and, if this
+     * made the cluster's first leader, the ID of the queued elastic IP
+     * operation. If any broker did not send its private IP, the whole batch
+     * is registered by a queued cloud operation as with /register-broker: the
+     * answer is 202, the uniqueIds are listed as pending and the operation's ID
+     * is returned.
+     */
+    @PostMapping({ "/register-brokers", "/clusters/{clusterId}/register-brokers" })
+    public ResponseEntity<Map<String, Object>> registerBrokers(@PathVariable(required = false) String clusterId,
+            @RequestBody List<Broker> brokers) {
+        String cluster = clusterId != null ? clusterId : clusterOf(brokers);
+        CloudOperation operation = coordinatorServerService.registerInstances(cluster, brokers);
+        List<Integer> uniqueIds = new ArrayList<>(brokers.size());
+        boolean lookup = false;
+        for (Broker broker : brokers) {
+            uniqueIds.add(broker.getUniqueId());
+            lookup |= broker.getIpAddress() == null;
+        }
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("clusterId", cluster);
+        response.put(lookup ? "pending" : "registered", uniqueIds);
+        response.put("cloudOperationId", operation == null ? null : operation.getId());
+        if (lookup) {
+            operation.getCompletion().thenRun(() -> registered(cluster, brokers));
+            return ResponseEntity.accepted().body(response);
+        }
+        registered(cluster, brokers);
+        System.out.println(brokers.size() + " broker nodes have registered with Coordinator Server");
+        return ResponseEntity.ok(response);
     }
 
-    @GetMapping("/broker-registry")
-    public Map<Integer, Broker> getBrokerRegistry() {
-        return brokerRegistry;
+    // leases and reported load of brokers that are now in the registry
+    private void registered(String clusterId, List<Broker> brokers) {
+        List<Integer> uniqueIds = new ArrayList<>(brokers.size());
+        for (Broker broker : brokers) {
+            uniqueIds.add(broker.getUniqueId());
+            recordLoad(clusterId, broker);
+        }
+        brokerLeaseManager.grant(clusterId, uniqueIds);
+    }
+
+    /*
+     * Lease renewal, optionally carrying the broker's current load. 204 while
+     * the broker is registered; 404 once it has been evicted (or was never
+     * registered), telling it to register again.
+     */
+    @PostMapping({ "/broker-heartbeat/{uniqueId}", "/clusters/{clusterId}/broker-heartbeat/{uniqueId}" })
+    public ResponseEntity<Void> brokerHeartbeat(@PathVariable(required = false) String clusterId,
+            @PathVariable Integer uniqueId, @RequestBody(required = false) BrokerLoad load) {
+        if (!brokerLeaseManager.renew(cluster(clusterId), uniqueId)) {
+            return ResponseEntity.notFound().build();
+        }
+        if (load != null) {
+            brokerLoadTracker.record(cluster(clusterId), uniqueId, load);
+        }
+        return ResponseEntity.noContent().header("X-Lease-TTL-Ms", Long.toString(brokerLeaseManager.getTtlMillis()))
+                .build();
     }
 
-    @DeleteMapping("/deregister-broker/{uniqueId}")
-    public void deregisterBroker(@PathVariable Integer uniqueId) {
-        Broker broker = brokerRegistry.remove(uniqueId);
+    // served from pre-serialized bytes; 304 when If-None-Match still matches
+    @GetMapping({ "/broker-registry", "/clusters/{clusterId}/broker-registry" })
+    public ResponseEntity<byte[]> getBrokerRegistry(@PathVariable(required = false) String clusterId,
+            WebRequest request) {
+        return cachedResponse(registryResponseCache.getRegistry(cluster(clusterId)), request);
+    }
+
+    @DeleteMapping({ "/deregister-broker/{uniqueId}", "/clusters/{clusterId}/deregister-broker/{uniqueId}" })
+    public void deregisterBroker(@PathVariable(required = false) String clusterId, @PathVariable Integer uniqueId) {
+        Broker broker = coordinatorServerService.unregisterInstance(cluster(clusterId), uniqueId);
         if (broker != null) {
-            coordinatorServerService.unregisterInstance(broker.getUniqueId());
             System.out.println("Broker node with uniqueID " + uniqueId + "has deregistered from Coordinator Server.\n");
         }
     }
 
-    @GetMapping("/fetch-leadBroker-elasticIP")
-    public String getLeadBrokerPublicIPAddress() {
+    // deregisters many brokers at once and returns the ones that were registered
+    @PostMapping({ "/deregister-brokers", "/clusters/{clusterId}/deregister-brokers" })
+    public List<Broker> deregisterBrokers(@PathVariable(required = false) String clusterId,
+            @RequestBody List<Integer> uniqueIds) {
+        List<Broker> removed = coordinatorServerService.unregisterInstances(cluster(clusterId), uniqueIds);
+        System.out.println(removed.size() + " broker nodes have deregistered from Coordinator Server.\n");
+        return removed;
+    }
+
+    @GetMapping({ "/fetch-leadBroker-elasticIP", "/clusters/{clusterId}/fetch-leadBroker-elasticIP" })
+    public String getLeadBrokerPublicIPAddress(@PathVariable(required = false) String clusterId) {
         System.out.println("Coordinator sending lead broker's (elastic) IP Address. \n");
-        return coordinatorServerService.getElasticIpAddress();
+        return coordinatorServerService.getElasticIpAddress(cluster(clusterId));
     }
 
-    @GetMapping("/getCurrent-leadBroker-PrivateIP")
-    public String getCurrentLeadBrokerPrivateIP() {
+    @GetMapping({ "/getCurrent-leadBroker-PrivateIP", "/clusters/{clusterId}/getCurrent-leadBroker-PrivateIP" })
+    public String getCurrentLeadBrokerPrivateIP(@PathVariable(required = false) String clusterId) {
         System.out.println("Coordinator sending lead broker's private IP Address.\n");
-        return coordinatorServerService.getleadEC2BrokerPrivateIP();
+        return coordinatorServerService.getleadEC2BrokerPrivateIP(cluster(clusterId));
     }
 
-    @GetMapping("/get-peerBrokers-IPList")
-    public List<String> getPeerBrokerIPList() {
-        List<String> peerBrokerIPList = new ArrayList<>();
-        String leadEC2BrokerPrivateIP = coordinatorServerService.getleadEC2BrokerPrivateIP();
-        for (Broker broker : brokerRegistry.values()) {
-            if (!leadEC2BrokerPrivateIP.equals(broker.getIpAddress())) {
-                peerBrokerIPList.add(broker.getIpAddress());
-            }
-        }
-        System.out.println(
-                "Coordinator Server Requested to send peer broker nodes' private IP addresses. \n Sending the private IP Addresses of peer broker nodes present in the broker cluster\n");
-        return peerBrokerIPList;
-    }
-
-    private boolean pingLeader(String leaderPrivateIp) {
-
-        boolean isLeaderResponsive = false;
-        try {
-            System.out.println("Coordinator Server Pinging current leader broker node to check health status...\n");
-            String healthCheckUrl = "http://" + leaderPrivateIp + ":8080/leadBroker-status";
-            String statusOfLeadBroker = restTemplate.getForObject(healthCheckUrl, String.class);
-            System.out.println("Response from current leader broker: " + statusOfLeadBroker);
-            isLeaderResponsive = true;
-        } catch (Exception e) {
-            // Exception occurred, leader is not responsive
-
-            System.err.println("Error occurred while pinging leader broker: " + e.getMessage());
-            isLeaderResponsive = false;
-            System.out.println(
-                    "current lead broker is verified by Coordinator Server to have failed and is not responding \n");
-        }
-
-        return isLeaderResponsive;
+    @GetMapping({ "/get-peerBrokers-IPList", "/clusters/{clusterId}/get-peerBrokers-IPList" })
+    public ResponseEntity<byte[]> getPeerBrokerIPList(@PathVariable(required = false) String clusterId,
+            WebRequest request) {
+        return cachedResponse(registryResponseCache.getPeerList(cluster(clusterId)), request);
     }
 
-    public Integer findUniqueIdByIpAddress(String ipAddress) {
-        System.out.println("fetching uniqueId associated with IP address \n");
-        for (Map.Entry<Integer, Broker> entry : brokerRegistry.entrySet()) {
-            if (entry.getValue().getIpAddress().equals(ipAddress)) {
-                return entry.getKey();
-            }
-        }
-        return null; // Return null if ipAddress is not found in the brokerRegistry
+    /*
+     * Every broker of the cluster with its role, plus where clients should send
+     * writes and reads, so they can route without going through the elastic IP
+     * for everything. JSON by default; the compact binary form described in
+     * Topology when asked for with Accept: application/x-broker-topology.
+     */
+    @GetMapping({ "/topology", "/clusters/{clusterId}/topology" })
+    public ResponseEntity<byte[]> getTopology(@PathVariable(required = false) String clusterId,
+            WebRequest request, HttpServletResponse response) {
+        // one URL, two bodies: caches must key on Accept, 304s included
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        return cachedResponse(registryResponseCache.getTopology(cluster(clusterId)), request);
     }
 
-    public void sendNewLeadBrokerPrivateIPToPeerNodes(List<String> peerBrokerIPAddresses,
-            String newLeadBrokerPrivateIPAddress) {
-        String endpoint = ":8080/updateLeaderIPAndCheckStatus";
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_JSON);
-        System.out.println("Sending the new elected broker's private IP address to nodes in the cluster.\n");
-        for (String ipAddress : peerBrokerIPAddresses) {
-            JSONObject requestBodyJson = new JSONObject();
-            requestBodyJson.put("New LeadBroker's Private IP Address: ", newLeadBrokerPrivateIPAddress);
+    @GetMapping(path = { "/topology", "/clusters/{clusterId}/topology" }, produces = Topology.MEDIA_TYPE)
+    public ResponseEntity<byte[]> getBinaryTopology(@PathVariable(required = false) String clusterId,
+            WebRequest request, HttpServletResponse response) {
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        return cachedResponse(registryResponseCache.getBinaryTopology(cluster(clusterId)), request,
+                MediaType.parseMediaType(Topology.MEDIA_TYPE));
+    }
 
-            HttpEntity<String> requestEntity = new HttpEntity<>(requestBodyJson.toString(), headers);
-            String url = "http://" + ipAddress + endpoint;
+    private static ResponseEntity<byte[]> cachedResponse(RegistryResponseCache.CachedBody cached,
+            WebRequest request) {
+        return cachedResponse(cached, request, MediaType.APPLICATION_JSON);
+    }
 
-            restTemplate.postForObject(url, requestEntity, Void.class);
-            System.out.println("New elected leader broker node's IP address sent to: " + ipAddress);
+    private static ResponseEntity<byte[]> cachedResponse(RegistryResponseCache.CachedBody cached,
+            WebRequest request, MediaType contentType) {
+        if (request.checkNotModified(cached.getEtag())) {
+            return null; // checkNotModified has already set up the 304
         }
+        return ResponseEntity.ok().eTag(cached.getEtag()).contentType(contentType).body(cached.getBody());
+    }
+
+    public Integer findUniqueIdByIpAddress(String clusterId, String ipAddress) {
+        System.out.println("fetching uniqueId associated with IP address \n");
+        return brokerRegistry.findUniqueIdByIpAddress(clusterId, ipAddress); // null if ipAddress is not registered
     }
 
-    @PostMapping("/leader-not-responding")
-    public void handleLeaderNotResponding(@RequestBody String requestBody) {
+    @PostMapping({ "/leader-not-responding", "/clusters/{clusterId}/leader-not-responding" })
+    public CompletableFuture<FailoverResult> handleLeaderNotResponding(@PathVariable(required = false) String clusterId,
+            @RequestBody String requestBody) {
         JSONObject jsonObject = new JSONObject(requestBody);
         String currleadBrokerIPAtNode = jsonObject.getString("currleadBrokerIPAtNode");
         System.out.println(
                 "leader broker's private IP Address at peer node (sent by peer broker node to report leader's failure)"
                         + currleadBrokerIPAtNode);
-        String currLeadInstanceIPAddressAtServer = coordinatorServerService.getleadEC2BrokerPrivateIP();
-        System.out.println("Fetched current lead broker's private IP at coordinator server");
-        if (currleadBrokerIPAtNode.equals(currLeadInstanceIPAddressAtServer)) {
-            System.out.println(
-                    "IP sent by reporting node and stored at Coordinator Server are a match\n verifying if leader broker is indeed non responsive");
-            boolean leaderIsAlive = pingLeader(currLeadInstanceIPAddressAtServer);
-
-            if (!leaderIsAlive) {
-                System.out.println(
-                        "leader node is non responsive. \n Setting value of leader broker at coordinator server as null untill leader election completes.");
-
-                coordinatorServerService.setleadEC2BrokerPrivateIP(null);
-
-                Integer instanceIDOfFailedLeadBroker = findUniqueIdByIpAddress(currLeadInstanceIPAddressAtServer);
-                if (instanceIDOfFailedLeadBroker != null) {
-                    System.out.println("Deregistering failed leader broker node");
-                    deregisterBroker(instanceIDOfFailedLeadBroker);
-
-                } else {
-                    System.out.println(
-                            "Failed to find uniqueID associated with the IP address of the failed leader broker node.");
-                }
-                System.out.println("Starting leader election among the other registered broker nodesin cluster");
-
-                coordinatorServerService.electNewLeaderAndAssociateElasticIp();
-                System.out.println("New leader is elected.");
-                String newLeadBrokerPrivateIPAddress = coordinatorServerService.getleadEC2BrokerPrivateIP();
-                System.out.println("PrivateIP of new leader broker node: " + newLeadBrokerPrivateIPAddress);
-
-                List<String> peerBrokerIPAddresses = getPeerBrokerIPList();
-                System.out.println(
-                        "Sending new elected lead broker's private IP to all registered peer nodes in cluster");
-                sendNewLeadBrokerPrivateIPToPeerNodes(peerBrokerIPAddresses, newLeadBrokerPrivateIPAddress);
-            }
+        // concurrent reports of the same leader join a single failover and all get its result
+        return leaderFailoverCoordinator.reportLeaderFailure(cluster(clusterId), currleadBrokerIPAtNode, true);
+    }
 
+    private void recordLoad(String clusterId, Broker broker) {
+        if (broker.getLoad() != null) {
+            brokerLoadTracker.record(clusterId, broker.getUniqueId(), broker.getLoad());
         }
-        System.out.println(
-                "reporting node does not have updated lead broker node's IP. It didn't match with lead broker's IP stored at Coordinator Server. ");
+    }
+
+    private static String cluster(String clusterId) {
+        return clusterId == null ? Broker.DEFAULT_CLUSTER : clusterId;
+    }
+
+    // the cluster all of the brokers name; a batch may not span clusters
+    private static String clusterOf(List<Broker> brokers) {
+        String clusterId = brokers.isEmpty() ? Broker.DEFAULT_CLUSTER : brokers.get(0).getClusterId();
+        for (Broker broker : brokers) {
+            if (!broker.getClusterId().equals(clusterId)) {
+                throw new IllegalArgumentException("Brokers of one registration must belong to one cluster");
+            }
+        }
+        return clusterId;
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> handleBadRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
 
+    // a cloud call made while handling the request failed; a retryable one is worth retrying later
+    @ExceptionHandler(CloudProviderException.class)
+    public ResponseEntity<String> handleCloudProviderFailure(CloudProviderException e) {
+        System.out.println("Cloud provider call failed: " + e.getMessage());
+        HttpStatus status = e.isRetryable() ? HttpStatus.SERVICE_UNAVAILABLE : HttpStatus.BAD_GATEWAY;
+        return ResponseEntity.status(status).body(e.getMessage());
     }
 
 }
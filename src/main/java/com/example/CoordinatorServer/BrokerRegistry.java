@@ -0,0 +1,280 @@
+package com.example.CoordinatorServer;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.stereotype.Component;
+
+/*
+ * Single source of truth for the brokers registered with the coordinator,
+ * partitioned by broker cluster. Each cluster has its own partition, and
+ * updates to one never contend with updates to another.
+ *
+ * Writers take the partition's lock and change its broker map and secondary
+ * indexes (by private IP and by EC2 instance ID) in place, in O(log n), so a
+ * multi-broker update is still atomic but never copies the cluster. Readers
+ * get an immutable Snapshot, built at most once per version on the first read
+ * after a change and shared until the next one; repeated reads of an
+ * unchanged cluster take no lock. Brokers are copied on the way in, so
+ * callers cannot change registered brokers behind the registry's back.
+ * Partitions are kept once created, so a cluster's versions only ever move
+ * forward.
+ */
+@Component
+public class BrokerRegistry {
+
+    private final Map<String, Partition> partitions = new ConcurrentHashMap<>();
+
+    public Snapshot snapshot(String clusterId) {
+        Partition partition = partitions.get(clusterId);
+        return partition == null ? Snapshot.EMPTY : partition.snapshot();
+    }
+
+    // every cluster that has had a broker registered, sorted
+    public Set<String> clusterIds() {
+        return new TreeSet<>(partitions.keySet());
+    }
+
+    /*
+     * Adds or replaces the broker with the same uniqueId in the broker's cluster.
+     * Returns the version the registration produced.
+     */
+    public long register(Broker broker) {
+        return registerAll(broker.getClusterId(), List.of(broker));
+    }
+
+    // adds or replaces all of the brokers of one cluster in one atomic update and returns the new version
+    public long registerAll(String clusterId, Collection<Broker> brokers) {
+        List<Broker> added = copyIn(clusterId, brokers);
+        Partition partition = partition(clusterId);
+        partition.lock.lock();
+        try {
+            for (Broker broker : added) {
+                partition.put(broker);
+            }
+            return ++partition.version;
+        } finally {
+            partition.lock.unlock();
+        }
+    }
+
+    /*
+     * Replaces a cluster's brokers, e.g. with a snapshot from the coordinator
+     * leader. Returns the brokers registered before.
+     */
+    public List<Broker> replaceAll(String clusterId, Collection<Broker> brokers) {
+        List<Broker> replacement = copyIn(clusterId, brokers);
+        Partition partition = partition(clusterId);
+        partition.lock.lock();
+        try {
+            List<Broker> previous = new ArrayList<>(partition.brokers.values());
+            partition.brokers.clear();
+            partition.uniqueIdByIpAddress.clear();
+            partition.uniqueIdByInstanceId.clear();
+            for (Broker broker : replacement) {
+                partition.put(broker);
+            }
+            partition.version++;
+            return previous;
+        } finally {
+            partition.lock.unlock();
+        }
+    }
+
+    /*
+     * Removes the broker with the given uniqueId from the cluster. Returns the
+     * removed broker, or null if it was not registered.
+     */
+    public Broker remove(String clusterId, int uniqueId) {
+        List<Broker> removed = removeAll(clusterId, List.of(uniqueId));
+        return removed.isEmpty() ? null : removed.get(0);
+    }
+
+    // removes all of the given brokers in one atomic update and returns the ones that were registered
+    public List<Broker> removeAll(String clusterId, Collection<Integer> uniqueIds) {
+        Partition partition = partitions.get(clusterId);
+        List<Broker> removed = new ArrayList<>();
+        if (partition == null) {
+            return removed;
+        }
+        partition.lock.lock();
+        try {
+            for (Integer uniqueId : uniqueIds) {
+                Broker broker = partition.brokers.remove(uniqueId);
+                if (broker != null) {
+                    partition.unindex(broker);
+                    removed.add(broker);
+                }
+            }
+            if (!removed.isEmpty()) {
+                partition.version++;
+            }
+            return removed;
+        } finally {
+            partition.lock.unlock();
+        }
+    }
+
+    public Broker get(String clusterId, int uniqueId) {
+        return snapshot(clusterId).get(uniqueId);
+    }
+
+    public Integer findUniqueIdByIpAddress(String clusterId, String ipAddress) {
+        return snapshot(clusterId).uniqueIdByIpAddress.get(ipAddress);
+    }
+
+    public Integer findUniqueIdByInstanceId(String clusterId, String instanceId) {
+        return snapshot(clusterId).uniqueIdByInstanceId.get(instanceId);
+    }
+
+    public boolean containsInstance(String clusterId, String instanceId) {
+        return snapshot(clusterId).uniqueIdByInstanceId.containsKey(instanceId);
+    }
+
+    public boolean isEmpty(String clusterId) {
+        return snapshot(clusterId).isEmpty();
+    }
+
+    private Partition partition(String clusterId) {
+        Partition partition = partitions.get(clusterId);
+        return partition != null ? partition : partitions.computeIfAbsent(clusterId, key -> new Partition());
+    }
+
+    private static List<Broker> copyIn(String clusterId, Collection<Broker> brokers) {
+        List<Broker> copies = new ArrayList<>(brokers.size());
+        for (Broker broker : brokers) {
+            copies.add(broker.copyIn(clusterId));
+        }
+        return copies;
+    }
+
+    /*
+     * One cluster's brokers. The maps are only touched with the lock held;
+     * a ReentrantLock rather than synchronized, so virtual threads waiting on
+     * it do not pin their carriers.
+     */
+    private static final class Partition {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final TreeMap<Integer, Broker> brokers = new TreeMap<>();
+        private final Map<String, Integer> uniqueIdByIpAddress = new HashMap<>();
+        private final Map<String, Integer> uniqueIdByInstanceId = new HashMap<>();
+        // written with the lock held, after the maps
+        private volatile long version;
+        private volatile Snapshot published = Snapshot.EMPTY;
+
+        Snapshot snapshot() {
+            Snapshot snapshot = published;
+            if (snapshot.version == version) {
+                return snapshot;
+            }
+            lock.lock();
+            try {
+                if (published.version != version) {
+                    published = new Snapshot(version, new TreeMap<>(brokers), new HashMap<>(uniqueIdByIpAddress),
+                            new HashMap<>(uniqueIdByInstanceId));
+                }
+                return published;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        // lock held
+        void put(Broker broker) {
+            Broker replaced = brokers.put(broker.getUniqueId(), broker);
+            if (replaced != null) {
+                unindex(replaced);
+            }
+            if (broker.getIpAddress() != null) {
+                uniqueIdByIpAddress.put(broker.getIpAddress(), broker.getUniqueId());
+            }
+            if (broker.getEC2instanceID() != null) {
+                uniqueIdByInstanceId.put(broker.getEC2instanceID(), broker.getUniqueId());
+            }
+        }
+
+        // lock held; leaves index entries alone that another broker has taken over since
+        void unindex(Broker broker) {
+            if (broker.getIpAddress() != null) {
+                uniqueIdByIpAddress.remove(broker.getIpAddress(), broker.getUniqueId());
+            }
+            if (broker.getEC2instanceID() != null) {
+                uniqueIdByInstanceId.remove(broker.getEC2instanceID(), broker.getUniqueId());
+            }
+        }
+    }
+
+    /*
+     * Immutable view of the registry at one version. Safe to hand out to any
+     * number of readers.
+     */
+    public static final class Snapshot {
+        static final Snapshot EMPTY = new Snapshot(0, new TreeMap<>(), new HashMap<>(), new HashMap<>());
+
+        private final long version;
+        private final NavigableMap<Integer, Broker> brokers;
+        private final Map<String, Integer> uniqueIdByIpAddress;
+        private final Map<String, Integer> uniqueIdByInstanceId;
+        private final List<String> ipAddresses;
+
+        private Snapshot(long version, TreeMap<Integer, Broker> brokers, Map<String, Integer> uniqueIdByIpAddress,
+                Map<String, Integer> uniqueIdByInstanceId) {
+            this.version = version;
+            this.brokers = Collections.unmodifiableNavigableMap(brokers);
+            this.uniqueIdByIpAddress = uniqueIdByIpAddress;
+            this.uniqueIdByInstanceId = uniqueIdByInstanceId;
+            List<String> ips = new ArrayList<>(brokers.size());
+            for (Broker broker : brokers.values()) {
+                if (broker.getIpAddress() != null) {
+                    ips.add(broker.getIpAddress());
+                }
+            }
+            this.ipAddresses = Collections.unmodifiableList(ips);
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        public NavigableMap<Integer, Broker> getBrokers() {
+            return brokers;
+        }
+
+        public List<String> getIpAddresses() {
+            return ipAddresses;
+        }
+
+        public Broker get(int uniqueId) {
+            return brokers.get(uniqueId);
+        }
+
+        // private IPs of every broker except the one at leaderIpAddress
+        public List<String> peerIpAddresses(String leaderIpAddress) {
+            List<String> peers = new ArrayList<>(ipAddresses.size());
+            for (String ipAddress : ipAddresses) {
+                if (!ipAddress.equals(leaderIpAddress)) {
+                    peers.add(ipAddress);
+                }
+            }
+            return peers;
+        }
+
+        public int size() {
+            return brokers.size();
+        }
+
+        public boolean isEmpty() {
+            return brokers.isEmpty();
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.CoordinatorServer;
+
+import java.util.concurrent.CompletableFuture;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+/*
+ * One EC2 call (or short sequence of calls) queued on the CloudOperationsPipeline.
+ * The status can be polled through /cloud-operations/{id}, and callers that
+ * need to act on the outcome can chain onto getCompletion().
+ */
+public class CloudOperation {
+
+    public enum Status {
+        PENDING, RUNNING, SUCCEEDED, FAILED
+    }
+
+    private final long id;
+    private final String laneKey;
+    private final String description;
+    private final long submittedAtMillis;
+    private volatile Status status = Status.PENDING;
+    private volatile long completedAtMillis;
+    private volatile String error;
+    private final CompletableFuture<Void> completion = new CompletableFuture<>();
+
+    CloudOperation(long id, String laneKey, String description) {
+        this.id = id;
+        this.laneKey = laneKey;
+        this.description = description;
+        this.submittedAtMillis = System.currentTimeMillis();
+    }
+
+    void run(Runnable action) {
+        status = Status.RUNNING;
+        try {
+            action.run();
+            status = Status.SUCCEEDED;
+            completedAtMillis = System.currentTimeMillis();
+            completion.complete(null);
+        } catch (RuntimeException e) {
+            error = e.getMessage();
+            status = Status.FAILED;
+            completedAtMillis = System.currentTimeMillis();
+            System.err.println("Cloud operation " + id + " (" + description + ") failed: " + e.getMessage());
+            completion.completeExceptionally(e);
+        }
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getLaneKey() {
+        return laneKey;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public long getSubmittedAtMillis() {
+        return submittedAtMillis;
+    }
+
+    public long getCompletedAtMillis() {
+        return completedAtMillis;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    @JsonIgnore
+    public CompletableFuture<Void> getCompletion() {
+        return completion;
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.CoordinatorServer;
+
+import java.util.List;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+public class CloudOperationsController {
+    private final CloudOperationsPipeline cloudOperationsPipeline;
+
+    public CloudOperationsController(CloudOperationsPipeline cloudOperationsPipeline) {
+        this.cloudOperationsPipeline = cloudOperationsPipeline;
+    }
+
+    @GetMapping("/cloud-operations")
+    public List<CloudOperation> getRecentCloudOperations() {
+        return cloudOperationsPipeline.getRecentOperations();
+    }
+
+    @GetMapping("/cloud-operations/{id}")
+    public ResponseEntity<CloudOperation> getCloudOperation(@PathVariable long id) {
+        CloudOperation operation = cloudOperationsPipeline.getOperation(id);
+        if (operation == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(operation);
+    }
+}
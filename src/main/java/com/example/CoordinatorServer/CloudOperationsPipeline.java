@@ -0,0 +1,165 @@
+package com.example.CoordinatorServer;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+
+/*
+ * Runs cloud provider calls off the HTTP request threads.
+ *
+ * Operations are submitted under a lane key. Operations in the same lane run one
+ * after another in submission order; different lanes run in parallel on the
+ * worker pool. Instance operations use the instance ID as their lane, and every
+ * operation on a broker cluster's elastic IP shares that cluster's
+ * elasticIpLane, so failovers of different clusters never queue behind each
+ * other. A batch call that covers several instances is queued on all of their
+ * lanes at once.
+ *
+ * coordinator.cloud-ops.workers bounds how many operations call the cloud
+ * provider at once. On virtual threads every operation gets its own thread and
+ * a semaphore enforces the bound instead of the pool size.
+ */
+@Component
+public class CloudOperationsPipeline {
+    private static final String ELASTIC_IP_LANE = "elastic-ip";
+
+    private final ExecutorService workers;
+    private final Semaphore concurrencyLimit;
+    private final int retainedOperations;
+    private final AtomicLong nextOperationId = new AtomicLong();
+    private final Map<String, CompletableFuture<Void>> laneTails = new ConcurrentHashMap<>();
+    private final Map<Long, CloudOperation> operations = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Long> operationOrder = new ConcurrentLinkedQueue<>();
+    // multi-lane submissions join their lanes one at a time; serializing them avoids wait cycles
+    private final Object multiLaneLock = new Object();
+
+    public CloudOperationsPipeline(@Value("${coordinator.cloud-ops.workers:4}") int workerCount,
+            @Value("${coordinator.cloud-ops.retained-operations:1000}") int retainedOperations,
+            BlockingTaskExecutors blockingTaskExecutors) {
+        this.retainedOperations = retainedOperations;
+        this.concurrencyLimit = new Semaphore(workerCount);
+        if (blockingTaskExecutors.isVirtual()) {
+            this.workers = blockingTaskExecutors.newExecutor("cloud-ops-");
+        } else {
+            AtomicInteger threadCount = new AtomicInteger();
+            this.workers = Executors.newFixedThreadPool(workerCount, runnable -> {
+                Thread thread = new Thread(runnable, "cloud-ops-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    // lane of every operation on the given broker cluster's elastic IP
+    public static String elasticIpLane(String clusterId) {
+        return ELASTIC_IP_LANE + ":" + clusterId;
+    }
+
+    /*
+     * Queues action on the given lane. It starts once every earlier operation in
+     * the same lane, and every operation in dependsOn, has finished (whether it
+     * succeeded or not).
+     */
+    public CloudOperation submit(String laneKey, String description, Runnable action, CloudOperation... dependsOn) {
+        return submitAcross(List.of(laneKey), description, action, dependsOn);
+    }
+
+    /*
+     * Queues one action on several lanes, e.g. a terminateInstances call for
+     * many instances. It starts once every earlier operation in each of the
+     * lanes and every operation in dependsOn has finished, and later operations
+     * in any of the lanes wait for it.
+     */
+    public CloudOperation submitAcross(Collection<String> laneKeys, String description, Runnable action,
+            CloudOperation... dependsOn) {
+        CloudOperation operation = new CloudOperation(nextOperationId.incrementAndGet(), String.join(",", laneKeys),
+                description);
+        retain(operation);
+
+        List<CompletableFuture<?>> predecessors = new ArrayList<>();
+        for (CloudOperation dependency : dependsOn) {
+            predecessors.add(dependency.getCompletion());
+        }
+        CompletableFuture<Void> tail = new CompletableFuture<>();
+        if (laneKeys.size() == 1) {
+            joinLane(laneKeys.iterator().next(), tail, predecessors);
+        } else {
+            synchronized (multiLaneLock) {
+                for (String laneKey : new LinkedHashSet<>(laneKeys)) {
+                    joinLane(laneKey, tail, predecessors);
+                }
+            }
+        }
+        CompletableFuture.allOf(predecessors.toArray(new CompletableFuture<?>[0]))
+                .handle((ignored, error) -> null)
+                .thenRunAsync(() -> runWithinLimit(operation, action), workers)
+                .whenComplete((ignored, error) -> tail.complete(null));
+        return operation;
+    }
+
+    private void runWithinLimit(CloudOperation operation, Runnable action) {
+        concurrencyLimit.acquireUninterruptibly();
+        try {
+            operation.run(action);
+        } finally {
+            concurrencyLimit.release();
+        }
+    }
+
+    // makes tail the new end of the lane and adds the previous end to predecessors
+    private void joinLane(String laneKey, CompletableFuture<Void> tail, List<CompletableFuture<?>> predecessors) {
+        CompletableFuture<Void> previous = laneTails.put(laneKey, tail);
+        if (previous != null) {
+            predecessors.add(previous);
+        }
+        // drop the lane once it drains so idle instance IDs do not accumulate
+        tail.whenComplete((ignored, error) -> laneTails.remove(laneKey, tail));
+    }
+
+    public CloudOperation getOperation(long id) {
+        return operations.get(id);
+    }
+
+    public List<CloudOperation> getRecentOperations() {
+        List<CloudOperation> recent = new ArrayList<>();
+        for (Long id : operationOrder) {
+            CloudOperation operation = operations.get(id);
+            if (operation != null) {
+                recent.add(operation);
+            }
+        }
+        return recent;
+    }
+
+    private void retain(CloudOperation operation) {
+        operations.put(operation.getId(), operation);
+        operationOrder.add(operation.getId());
+        while (operations.size() > retainedOperations) {
+            Long oldest = operationOrder.poll();
+            if (oldest == null) {
+                break;
+            }
+            operations.remove(oldest);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdown();
+    }
+}
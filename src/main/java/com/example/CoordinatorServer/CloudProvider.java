@@ -0,0 +1,48 @@
+package com.example.CoordinatorServer;
+
+import java.util.Collection;
+import java.util.Map;
+
+/*
+ * The cloud calls the coordinator depends on: one elastic (public) address that
+ * follows the leader broker, private IP lookups and instance termination.
+ * Ec2CloudProvider talks to AWS; SimulatedCloudProvider runs in-process for
+ * offline and load testing (coordinator.cloud.provider).
+ *
+ * Implementations throw CloudProviderException when a call fails.
+ */
+public interface CloudProvider {
+
+    AllocatedAddress allocateAddress();
+
+    // returns the association ID
+    String associateAddress(String allocationId, String instanceId);
+
+    void disassociateAddress(String associationId);
+
+    // association ID of the address on that instance, or null if it is not associated with it
+    String findAssociationId(String allocationId, String instanceId);
+
+    // instance ID -> private IP; instances the provider does not know are left out
+    Map<String, String> describePrivateIpAddresses(Collection<String> instanceIds);
+
+    void terminateInstances(Collection<String> instanceIds);
+
+    final class AllocatedAddress {
+        private final String allocationId;
+        private final String publicIp;
+
+        public AllocatedAddress(String allocationId, String publicIp) {
+            this.allocationId = allocationId;
+            this.publicIp = publicIp;
+        }
+
+        public String getAllocationId() {
+            return allocationId;
+        }
+
+        public String getPublicIp() {
+            return publicIp;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.CoordinatorServer;
+
+/*
+ * A failed cloud call. retryable is set when the same call may succeed later:
+ * the provider rejected it for exceeding its request rate, or it never reached
+ * the provider or its answer was lost on the way back.
+ */
+public class CloudProviderException extends RuntimeException {
+    private final boolean retryable;
+
+    public CloudProviderException(String message, boolean retryable) {
+        super(message);
+        this.retryable = retryable;
+    }
+
+    public CloudProviderException(String message, boolean retryable, Throwable cause) {
+        super(message, cause);
+        this.retryable = retryable;
+    }
+
+    public boolean isRetryable() {
+        return retryable;
+    }
+}
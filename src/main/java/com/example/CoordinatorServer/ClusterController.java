@@ -0,0 +1,42 @@
+package com.example.CoordinatorServer;
+
+import org.json.JSONObject;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+
+/*
+ * Replication RPCs exchanged between coordinator replicas, plus a status view
+ * of this replica. Bodies are the JSON documents built by RaftNode.
+ */
+@RestController
+public class ClusterController {
+    private final RaftNode raftNode;
+
+    public ClusterController(RaftNode raftNode) {
+        this.raftNode = raftNode;
+    }
+
+    @PostMapping(value = "/cluster/request-vote", produces = MediaType.APPLICATION_JSON_VALUE)
+    public String requestVote(@RequestBody String request) {
+        return raftNode.handleRequestVote(new JSONObject(request)).toString();
+    }
+
+    @PostMapping(value = "/cluster/append-entries", produces = MediaType.APPLICATION_JSON_VALUE)
+    public String appendEntries(@RequestBody String request) {
+        return raftNode.handleAppendEntries(new JSONObject(request)).toString();
+    }
+
+    @PostMapping(value = "/cluster/install-snapshot", produces = MediaType.APPLICATION_JSON_VALUE)
+    public String installSnapshot(@RequestBody String request) {
+        return raftNode.handleInstallSnapshot(new JSONObject(request)).toString();
+    }
+
+    // role, term, leader and log positions of this coordinator replica
+    @GetMapping(value = "/cluster/status", produces = MediaType.APPLICATION_JSON_VALUE)
+    public String getStatus() {
+        return raftNode.getStatus().toString();
+    }
+}
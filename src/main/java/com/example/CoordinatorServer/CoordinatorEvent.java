@@ -0,0 +1,99 @@
+package com.example.CoordinatorServer;
+
+import org.json.JSONObject;
+
+/*
+ * One change to the coordinator's durable state, as written to the
+ * CoordinatorStateLog. Leadership events carry the whole leadership tuple of
+ * one broker cluster, so replaying them is idempotent. Events written before
+ * brokers were grouped into clusters carry no clusterId and belong to
+ * Broker.DEFAULT_CLUSTER.
+ */
+public class CoordinatorEvent {
+
+    public enum Type {
+        BROKER_REGISTERED, BROKER_DEREGISTERED, LEADERSHIP_CHANGED
+    }
+
+    private final Type type;
+    private final JSONObject payload;
+
+    private CoordinatorEvent(Type type, JSONObject payload) {
+        this.type = type;
+        this.payload = payload;
+    }
+
+    public static CoordinatorEvent brokerRegistered(Broker broker) {
+        return new CoordinatorEvent(Type.BROKER_REGISTERED, brokerToJson(broker));
+    }
+
+    public static CoordinatorEvent brokerDeregistered(String clusterId, int uniqueId) {
+        return new CoordinatorEvent(Type.BROKER_DEREGISTERED,
+                new JSONObject().put("clusterId", clusterId).put("uniqueId", uniqueId));
+    }
+
+    public static CoordinatorEvent leadershipChanged(String clusterId, String elasticIpAddress,
+            String elasticIpAllocationId, String elasticIpAssociationId, String leaderInstanceId,
+            String leaderPrivateIp, long leaderEpoch) {
+        JSONObject payload = new JSONObject()
+                .put("clusterId", clusterId)
+                .put("elasticIpAddress", nullable(elasticIpAddress))
+                .put("elasticIpAllocationId", nullable(elasticIpAllocationId))
+                .put("elasticIpAssociationId", nullable(elasticIpAssociationId))
+                .put("leaderInstanceId", nullable(leaderInstanceId))
+                .put("leaderPrivateIp", nullable(leaderPrivateIp))
+                .put("leaderEpoch", leaderEpoch);
+        return new CoordinatorEvent(Type.LEADERSHIP_CHANGED, payload);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public String getClusterId() {
+        return payload.optString("clusterId", Broker.DEFAULT_CLUSTER);
+    }
+
+    public Broker getBroker() {
+        return brokerFromJson(payload);
+    }
+
+    public int getUniqueId() {
+        return payload.getInt("uniqueId");
+    }
+
+    public String getString(String key) {
+        return payload.isNull(key) ? null : payload.getString(key);
+    }
+
+    public long getLeaderEpoch() {
+        return payload.getLong("leaderEpoch");
+    }
+
+    public JSONObject toJson() {
+        return new JSONObject().put("type", type.name()).put("payload", payload);
+    }
+
+    public static CoordinatorEvent fromJson(JSONObject json) {
+        return new CoordinatorEvent(Type.valueOf(json.getString("type")), json.getJSONObject("payload"));
+    }
+
+    static JSONObject brokerToJson(Broker broker) {
+        return new JSONObject()
+                .put("clusterId", broker.getClusterId())
+                .put("ipAddress", nullable(broker.getIpAddress()))
+                .put("port", broker.getPort())
+                .put("uniqueId", broker.getUniqueId())
+                .put("ec2InstanceID", nullable(broker.getEC2instanceID()));
+    }
+
+    static Broker brokerFromJson(JSONObject json) {
+        return new Broker(json.optString("clusterId", Broker.DEFAULT_CLUSTER),
+                json.isNull("ipAddress") ? null : json.getString("ipAddress"), json.getInt("port"),
+                json.getInt("uniqueId"), json.isNull("ec2InstanceID") ? null : json.getString("ec2InstanceID"));
+    }
+
+    private static Object nullable(Object value) {
+        return value == null ? JSONObject.NULL : value;
+    }
+}
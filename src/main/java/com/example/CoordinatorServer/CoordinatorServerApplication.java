@@ -2,10 +2,9 @@ package com.example.CoordinatorServer;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
-import org.springframework.cloud.config.server.EnableConfigServer;
 
+// the config server is enabled in config.ConfigServerConfig
 @SpringBootApplication
-@EnableConfigServer
 
 public class CoordinatorServerApplication {
 
@@ -1,148 +1,573 @@
 package com.example.CoordinatorServer;
 
-import com.amazonaws.auth.AWSStaticCredentialsProvider;
-import com.amazonaws.auth.BasicAWSCredentials;
-import com.amazonaws.services.ec2.AmazonEC2;
-import com.amazonaws.services.ec2.AmazonEC2ClientBuilder;
-import com.amazonaws.services.ec2.model.AllocateAddressRequest;
-import com.amazonaws.services.ec2.model.AllocateAddressResult;
-import com.amazonaws.services.ec2.model.AssociateAddressRequest;
-import com.amazonaws.services.ec2.model.DescribeAddressesResult;
-import com.amazonaws.services.ec2.model.DescribeInstancesRequest;
-import com.amazonaws.services.ec2.model.DescribeInstancesResult;
-import com.amazonaws.services.ec2.model.DisassociateAddressRequest;
-import com.amazonaws.services.ec2.model.Reservation;
-import com.amazonaws.services.ec2.model.TerminateInstancesRequest;
-import com.amazonaws.services.ec2.model.Address;
-import com.amazonaws.services.ec2.model.Instance;
-
-import java.util.Collections;
-import java.util.HashMap;
-
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
 
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import jakarta.annotation.PostConstruct;
+
+/*
+ * Registers brokers and manages each broker cluster's lead broker and elastic
+ * IP. Every cluster has its own registry partition, leadership and elastic IP
+ * lane on the cloud operations pipeline, so elections and failovers in
+ * different clusters run in parallel.
+ */
 @Service
-public class CoordinatorServerService {
+public class CoordinatorServerService implements ReplicatedStateMachine {
+    private final CloudProvider cloudProvider;
+    private final Map<String, ClusterLeadership> leaderships = new ConcurrentHashMap<>();
+    // orders queuing changes on the state log with applying them to the in-memory state
+    private final Object applyLock = new Object();
+    // batches queued on the state log and not yet applied, oldest first; applyLock held
+    private final List<List<CoordinatorEvent>> pendingBatches = new ArrayList<>();
+
+    private final BrokerRegistry brokerRegistry;
+    private final CloudOperationsPipeline cloudOperationsPipeline;
+    private final InstanceMetadataCache instanceMetadataCache;
+    private final SuccessionPlan successionPlan;
+    private final CoordinatorStateLog coordinatorStateLog;
+    private final RaftNode raftNode;
+    private final LeaderChangeNotifier leaderChangeNotifier;
+    private final BrokerLoadTracker brokerLoadTracker;
+    private final BrokerLatencyTracker brokerLatencyTracker;
+
+    public CoordinatorServerService(BrokerRegistry brokerRegistry, CloudOperationsPipeline cloudOperationsPipeline,
+            InstanceMetadataCache instanceMetadataCache, SuccessionPlan successionPlan,
+            CoordinatorStateLog coordinatorStateLog, RaftNode raftNode, LeaderChangeNotifier leaderChangeNotifier,
+            CloudProvider cloudProvider, BrokerLoadTracker brokerLoadTracker,
+            BrokerLatencyTracker brokerLatencyTracker) {
+        this.brokerRegistry = brokerRegistry;
+        this.cloudOperationsPipeline = cloudOperationsPipeline;
+        this.instanceMetadataCache = instanceMetadataCache;
+        this.successionPlan = successionPlan;
+        this.coordinatorStateLog = coordinatorStateLog;
+        this.raftNode = raftNode;
+        this.leaderChangeNotifier = leaderChangeNotifier;
+        this.cloudProvider = cloudProvider;
+        this.brokerLoadTracker = brokerLoadTracker;
+        this.brokerLatencyTracker = brokerLatencyTracker;
+    }
 
-    private final AmazonEC2 ec2Client;
-    private String elasticIpAddress;
-    private String elasticIpAllocationId;
-    private String currentLeaderInstanceId;
-    private String leaderInstancePrivateIPAddress;
+    /*
+     * Restores the registry and leadership recorded before the last shutdown, so
+     * brokers do not have to re-register and the elastic IP is kept.
+     */
+    @PostConstruct
+    public void restoreState() {
+        CoordinatorState state = coordinatorStateLog.recover();
+        for (CoordinatorState.ClusterState cluster : state.getClusters().values()) {
+            if (cluster.isEmpty()) {
+                continue;
+            }
+            for (Broker broker : cluster.getBrokers().values()) {
+                instanceMetadataCache.put(broker.getEC2instanceID(), broker.getIpAddress());
+            }
+            brokerRegistry.registerAll(cluster.getClusterId(), cluster.getBrokers().values());
+            ClusterLeadership leadership = new ClusterLeadership(cluster.leadershipEvent());
+            applyLeadership(leadership);
+            leaderChangeNotifier.publish(leadership.view());
+        }
+        raftNode.start(this);
+    }
 
-    private final Map<Integer, String> brokerInstanceMap = new HashMap<>();
+    /*
+     * Applies an event committed through the replicated log. When clustered,
+     * every replica, the coordinator leader included, changes its state only
+     * here, once the events have committed. Only the leader talks to EC2, so
+     * this just updates the local state; the returned future completes once
+     * the state log has them.
+     */
+    @Override
+    public CompletableFuture<Void> apply(List<CoordinatorEvent> events) {
+        return applyAll(events);
+    }
 
-    public CoordinatorServerService(@Value("${aws.accessKeyId}") String awsaccessKeyId,
-            @Value("${aws.secretKey}") String awssecretKey) {
+    /*
+     * Queues the events on the state log and applies them to the in-memory
+     * state once they are durable, so nothing a failed write lost is ever
+     * visible. Changes are applied in the order they were queued, which is
+     * the order the log holds them in, and leadership changes then reach
+     * watchers in that order too. The returned future completes once the
+     * events are durable and applied, or fails without applying them.
+     */
+    private CompletableFuture<Void> applyAll(List<CoordinatorEvent> events) {
+        synchronized (applyLock) {
+            return logThenApply(events, () -> {
+                List<LeadershipView> changedLeaderships = new ArrayList<>();
+                int start = 0;
+                while (start < events.size()) {
+                    int end = endOfRun(events, start);
+                    applyRun(events.subList(start, end), changedLeaderships);
+                    start = end;
+                }
+                return changedLeaderships;
+            });
+        }
+    }
 
-        BasicAWSCredentials awsCredentials = new BasicAWSCredentials(awsaccessKeyId, awssecretKey);
-        ec2Client = AmazonEC2ClientBuilder.standard()
-                .withCredentials(new AWSStaticCredentialsProvider(awsCredentials))
-                .build();
-        System.out.println("ec2Client initialization is successful.");
+    /*
+     * applyLock held. The state log completes its futures in the order they
+     * were queued, on its writer thread, so change runs for one batch after
+     * another in log order; it returns the leadership views to publish.
+     */
+    private CompletableFuture<Void> logThenApply(List<CoordinatorEvent> events,
+            Supplier<List<LeadershipView>> change) {
+        pendingBatches.add(events);
+        return coordinatorStateLog.append(events).handle((ignored, error) -> {
+            List<LeadershipView> changedLeaderships;
+            synchronized (applyLock) {
+                pendingBatches.removeIf(pending -> pending == events);
+                if (error != null) {
+                    throw error instanceof CompletionException ? (CompletionException) error
+                            : new CompletionException(error);
+                }
+                changedLeaderships = change.get();
+            }
+            changedLeaderships.forEach(leaderChangeNotifier::publish);
+            return null;
+        });
     }
 
-    public synchronized void registerInstance(String instanceId, int uniqueId) {
-        if (brokerInstanceMap.isEmpty()) {
-            // ensuring that generateElasticIP and association happens only once for 1st
-            // broker's registration
-            brokerInstanceMap.put(uniqueId, instanceId);
-            generateElasticIp();
-            associateElasticIpWithLeader(instanceId);
+    // end of the run starting at start: broker events of one type and cluster go into the registry together
+    private static int endOfRun(List<CoordinatorEvent> events, int start) {
+        CoordinatorEvent first = events.get(start);
+        int end = start + 1;
+        if (first.getType() == CoordinatorEvent.Type.LEADERSHIP_CHANGED) {
+            return end;
+        }
+        while (end < events.size() && events.get(end).getType() == first.getType()
+                && events.get(end).getClusterId().equals(first.getClusterId())) {
+            end++;
+        }
+        return end;
+    }
+
+    // applyLock held
+    private void applyRun(List<CoordinatorEvent> run, List<LeadershipView> changedLeaderships) {
+        CoordinatorEvent first = run.get(0);
+        String clusterId = first.getClusterId();
+        switch (first.getType()) {
+            case BROKER_REGISTERED:
+                List<Broker> brokers = new ArrayList<>(run.size());
+                for (CoordinatorEvent event : run) {
+                    Broker broker = event.getBroker();
+                    instanceMetadataCache.put(broker.getEC2instanceID(), broker.getIpAddress());
+                    brokers.add(broker);
+                }
+                brokerRegistry.registerAll(clusterId, brokers);
+                break;
+            case BROKER_DEREGISTERED:
+                List<Integer> uniqueIds = new ArrayList<>(run.size());
+                for (CoordinatorEvent event : run) {
+                    uniqueIds.add(event.getUniqueId());
+                    brokerLoadTracker.forget(clusterId, event.getUniqueId());
+                }
+                for (Broker removed : brokerRegistry.removeAll(clusterId, uniqueIds)) {
+                    instanceMetadataCache.invalidate(removed.getEC2instanceID());
+                    brokerLatencyTracker.forget(clusterId, removed.getIpAddress());
+                }
+                break;
+            case LEADERSHIP_CHANGED:
+                ClusterLeadership leadership = new ClusterLeadership(first);
+                applyLeadership(leadership);
+                changedLeaderships.add(leadership.view());
+                break;
+        }
+    }
+
+    /*
+     * The in-memory state with every batch still waiting on the state log
+     * applied on top, i.e. everything handed to apply() and restore() so far.
+     */
+    @Override
+    public CoordinatorState snapshot() {
+        synchronized (applyLock) {
+            return pendingState();
+        }
+    }
+
+    // applyLock held
+    private CoordinatorState pendingState() {
+        CoordinatorState state = new CoordinatorState();
+        for (String clusterId : getClusterIds()) {
+            CoordinatorState.ClusterState cluster = state.cluster(clusterId);
+            cluster.apply(current(clusterId).event());
+            cluster.getBrokers().putAll(brokerRegistry.snapshot(clusterId).getBrokers());
+        }
+        for (List<CoordinatorEvent> pending : pendingBatches) {
+            for (CoordinatorEvent event : pending) {
+                state.apply(event);
+            }
+        }
+        return state;
+    }
+
+    /*
+     * Replaces this replica's state with the coordinator leader's snapshot.
+     * The state log only takes events, so the difference goes to it as one
+     * batch of events, and the replacement is applied once that is durable.
+     */
+    @Override
+    public CompletableFuture<Void> restore(CoordinatorState state) {
+        synchronized (applyLock) {
+            CoordinatorState pending = pendingState();
+            List<CoordinatorEvent> events = new ArrayList<>();
+            // clusters this replica knows but the leader does not are emptied
+            Set<String> clusterIds = new TreeSet<>(pending.getClusters().keySet());
+            clusterIds.addAll(state.getClusters().keySet());
+            for (String clusterId : clusterIds) {
+                CoordinatorState.ClusterState cluster = state.cluster(clusterId);
+                for (Integer uniqueId : pending.cluster(clusterId).getBrokers().keySet()) {
+                    if (!cluster.getBrokers().containsKey(uniqueId)) {
+                        events.add(CoordinatorEvent.brokerDeregistered(clusterId, uniqueId));
+                    }
+                }
+                for (Broker broker : cluster.getBrokers().values()) {
+                    events.add(CoordinatorEvent.brokerRegistered(broker));
+                }
+                events.add(cluster.leadershipEvent());
+            }
+            return logThenApply(events, () -> replaceState(clusterIds, state));
+        }
+    }
+
+    // applyLock held
+    private List<LeadershipView> replaceState(Set<String> clusterIds, CoordinatorState state) {
+        List<LeadershipView> changedLeaderships = new ArrayList<>();
+        for (String clusterId : clusterIds) {
+            CoordinatorState.ClusterState cluster = state.cluster(clusterId);
+            for (Broker broker : brokerRegistry.replaceAll(clusterId, cluster.getBrokers().values())) {
+                if (!cluster.getBrokers().containsKey(broker.getUniqueId())) {
+                    instanceMetadataCache.invalidate(broker.getEC2instanceID());
+                    brokerLoadTracker.forget(clusterId, broker.getUniqueId());
+                    brokerLatencyTracker.forget(clusterId, broker.getIpAddress());
+                }
+            }
+            for (Broker broker : cluster.getBrokers().values()) {
+                instanceMetadataCache.put(broker.getEC2instanceID(), broker.getIpAddress());
+            }
+            ClusterLeadership leadership = new ClusterLeadership(cluster.leadershipEvent());
+            applyLeadership(leadership);
+            changedLeaderships.add(leadership.view());
+        }
+        return changedLeaderships;
+    }
+
+    // applyLock held, or during startup
+    private void applyLeadership(ClusterLeadership leadership) {
+        leaderships.put(leadership.clusterId, leadership);
+        successionPlan.onLeaderChanged(leadership.clusterId, leadership.leaderInstanceId);
+    }
+
+    // the cluster's current leadership, empty if it is unknown; never changed, see ClusterLeadership
+    private ClusterLeadership current(String clusterId) {
+        ClusterLeadership leadership = leaderships.get(clusterId);
+        return leadership != null ? leadership : new ClusterLeadership(clusterId);
+    }
+
+    // every broker cluster with brokers or leadership on record, sorted
+    public Set<String> getClusterIds() {
+        Set<String> clusterIds = new TreeSet<>(leaderships.keySet());
+        clusterIds.addAll(brokerRegistry.clusterIds());
+        return clusterIds;
+    }
+
+    /*
+     * Makes changes durable and then applies them. When clustered they are
+     * replicated to a majority of coordinator replicas, and every replica,
+     * this one included, applies them as they commit (see apply). Either way
+     * they are written to the state log first and change the in-memory state
+     * only once they are durable, in the order they are logged; this returns
+     * once they are applied, and throws without applying them if the write
+     * fails.
+     */
+    private void persist(CoordinatorEvent event) {
+        persistAll(List.of(event));
+    }
+
+    private void persistAll(List<CoordinatorEvent> events) {
+        if (raftNode.isEnabled()) {
+            raftNode.replicateAll(events);
         } else {
-            brokerInstanceMap.put(uniqueId, instanceId);
+            CoordinatorStateLog.awaitDurable(applyAll(events));
         }
-        System.out.println(
-                "Broker with uniqueId " + uniqueId + " has been successfully registered at Coordinator Server");
+    }
 
+    /*
+     * Adds the broker to its cluster's registry. For the first broker of the
+     * cluster the elastic IP allocation and association are queued on the cloud
+     * operations pipeline and returned; otherwise there is no EC2 work and null
+     * is returned. A broker that did not send its private IP is registered by
+     * a queued operation instead, see registerInstances.
+     */
+    public CloudOperation registerInstance(Broker broker) {
+        return registerInstances(broker.getClusterId(), List.of(broker));
     }
 
-    public synchronized void unregisterInstance(int uniqueId) {
-        String instanceId = brokerInstanceMap.remove(uniqueId);
-        if (instanceId != null) {
-            if (instanceId.equals(currentLeaderInstanceId)) {
-                disassociateElasticIp(instanceId);
+    /*
+     * Adds all of the brokers to the cluster's registry in one atomic update and
+     * makes them durable together. If the cluster was empty, the first broker of
+     * the batch becomes the leader as with registerInstance.
+     *
+     * If any broker did not send its private IP, nothing is registered here:
+     * the lookup of the missing IPs, one describePrivateIpAddresses call, and
+     * the registration of the whole batch are queued on the lanes of those
+     * instances, and that operation is returned. It fails, registering
+     * nothing, if the cloud provider does not know one of the instances. A
+     * broker with neither a private IP nor an instance ID is rejected.
+     */
+    public CloudOperation registerInstances(String clusterId, List<Broker> brokers) {
+        if (brokers.isEmpty()) {
+            return null;
+        }
+        List<Broker> registrations = new ArrayList<>(brokers.size());
+        List<String> unresolved = new ArrayList<>();
+        for (Broker broker : brokers) {
+            if (broker.getIpAddress() == null) {
+                if (broker.getEC2instanceID() == null) {
+                    throw new IllegalArgumentException("Broker " + broker.getUniqueId()
+                            + " sent neither its private IP address nor its EC2 instance ID");
+                }
+                unresolved.add(broker.getEC2instanceID());
+            }
+            // copies, so later changes to the request objects cannot reach the registry
+            registrations.add(broker.copyIn(clusterId));
+        }
+        if (unresolved.isEmpty()) {
+            return registerResolved(clusterId, registrations);
+        }
+        String description = "look up private IPs of " + (unresolved.size() == 1 ? unresolved.get(0)
+                : unresolved.size() + " instances") + " and register them in cluster " + clusterId;
+        return cloudOperationsPipeline.submitAcross(unresolved, description, () -> {
+            Map<String, String> privateIps = instanceMetadataCache.getPrivateIpAddresses(unresolved);
+            List<String> unknown = new ArrayList<>();
+            for (Broker broker : registrations) {
+                if (broker.getIpAddress() == null) {
+                    broker.setIpAddress(privateIps.get(broker.getEC2instanceID()));
+                    if (broker.getIpAddress() == null) {
+                        unknown.add(broker.getEC2instanceID());
+                    }
+                }
+            }
+            if (!unknown.isEmpty()) {
+                throw new IllegalStateException("Cloud provider knows no running instance " + unknown
+                        + "; brokers were not registered");
+            }
+            registerResolved(clusterId, registrations);
+        });
+    }
+
+    // brokers is owned by the caller and every broker in it has its private IP
+    private CloudOperation registerResolved(String clusterId, List<Broker> brokers) {
+        List<CoordinatorEvent> events = new ArrayList<>(brokers.size());
+        for (Broker broker : brokers) {
+            events.add(CoordinatorEvent.brokerRegistered(broker));
+        }
+        boolean clusterWasEmpty = brokerRegistry.isEmpty(clusterId);
+        persistAll(events);
+        CloudOperation operation = null;
+        if (clusterWasEmpty) {
+            // ensuring that generateElasticIP and association happens only once for 1st
+            // broker's registration: concurrent first registrations may all get here, but
+            // their lane operations run one at a time and only the first finds no leader
+            Broker first = brokers.get(0);
+            String instanceId = first.getEC2instanceID();
+            operation = cloudOperationsPipeline.submit(CloudOperationsPipeline.elasticIpLane(clusterId),
+                    "allocate elastic IP of cluster " + clusterId + " and associate it with " + instanceId, () -> {
+                        String leaderInstanceId = current(clusterId).leaderInstanceId;
+                        if (leaderInstanceId != null && isInstanceRegistered(clusterId, leaderInstanceId)) {
+                            System.out.println("Broker cluster " + clusterId + " already has lead broker "
+                                    + leaderInstanceId + ". Elastic IP is not associated again.");
+                            return;
+                        }
+                        generateElasticIp(clusterId);
+                        associateElasticIpWithLeader(clusterId, instanceId, first.getIpAddress());
+                    });
+        }
+        for (Broker broker : brokers) {
+            System.out.println("Broker with uniqueId " + broker.getUniqueId()
+                    + " has been successfully registered at Coordinator Server");
+        }
+        return operation;
+    }
 
+    /*
+     * Removes the broker from its cluster's registry and queues the termination of its EC2
+     * instance (after releasing the elastic IP if it was the leader). Returns the
+     * removed broker, or null if it was not registered.
+     */
+    public Broker unregisterInstance(String clusterId, int uniqueId) {
+        List<Broker> removed = unregisterInstances(clusterId, List.of(uniqueId));
+        return removed.isEmpty() ? null : removed.get(0);
+    }
+
+    /*
+     * Removes all of the brokers in one atomic update and queues one
+     * terminateInstances call for their instances (after releasing the elastic
+     * IP if the leader is among them). Returns the brokers that were registered.
+     */
+    public List<Broker> unregisterInstances(String clusterId, Collection<Integer> uniqueIds) {
+        return unregisterInstances(clusterId, uniqueIds, true);
+    }
+
+    // as above; with terminate false the instances are only forgotten, e.g. when a lease expires
+    public List<Broker> unregisterInstances(String clusterId, Collection<Integer> uniqueIds, boolean terminate) {
+        NavigableMap<Integer, Broker> registered = brokerRegistry.snapshot(clusterId).getBrokers();
+        List<Broker> removed = new ArrayList<>(uniqueIds.size());
+        for (Integer uniqueId : new LinkedHashSet<>(uniqueIds)) {
+            Broker broker = registered.get(uniqueId);
+            if (broker != null) {
+                removed.add(broker);
+            }
+        }
+        if (removed.isEmpty()) {
+            return removed;
+        }
+        List<CoordinatorEvent> events = new ArrayList<>(removed.size());
+        List<String> instanceIds = new ArrayList<>(removed.size());
+        for (Broker broker : removed) {
+            events.add(CoordinatorEvent.brokerDeregistered(clusterId, broker.getUniqueId()));
+            if (broker.getEC2instanceID() != null) {
+                instanceIds.add(broker.getEC2instanceID());
             }
-            terminateEC2Instance(instanceId);
-            System.out.println("EC2 instance with uniqueId " + uniqueId + " is terminated. ");
         }
-        System.out.println(
-                "Broker node with UniqueId: " + uniqueId + " has deregistered from coordinator server successfully");
+        persistAll(events);
+
+        CloudOperation[] dependsOn = {};
+        String leaderInstanceId = current(clusterId).leaderInstanceId;
+        if (leaderInstanceId != null && instanceIds.contains(leaderInstanceId)) {
+            CloudOperation disassociation = cloudOperationsPipeline.submit(
+                    CloudOperationsPipeline.elasticIpLane(clusterId),
+                    "disassociate elastic IP of cluster " + clusterId + " from " + leaderInstanceId,
+                    () -> disassociateElasticIp(clusterId, leaderInstanceId));
+            dependsOn = new CloudOperation[] { disassociation };
+        }
+        if (terminate && !instanceIds.isEmpty()) {
+            String description = instanceIds.size() == 1 ? "terminate " + instanceIds.get(0)
+                    : "terminate " + instanceIds.size() + " instances";
+            cloudOperationsPipeline.submitAcross(instanceIds, description, () -> {
+                terminateEC2Instances(instanceIds);
+                for (String instanceId : instanceIds) {
+                    instanceMetadataCache.invalidate(instanceId);
+                }
+                System.out.println("EC2 instance(s) " + instanceIds + " are terminated. ");
+            }, dependsOn);
+        }
+        for (Broker broker : removed) {
+            System.out.println("Broker node with UniqueId: " + broker.getUniqueId()
+                    + " has deregistered from coordinator server successfully");
+        }
+        return removed;
     }
 
-    public synchronized boolean isInstanceRegistered(String instanceId) {
-        return brokerInstanceMap.containsValue(instanceId);
+    public boolean isInstanceRegistered(String clusterId, String instanceId) {
+        return brokerRegistry.containsInstance(clusterId, instanceId);
     }
 
-    public synchronized boolean isInstanceLeader(String instanceId) {
-        return instanceId.equals(currentLeaderInstanceId);
+    public boolean isInstanceLeader(String clusterId, String instanceId) {
+        return instanceId.equals(current(clusterId).leaderInstanceId);
     }
 
-    public synchronized void generateElasticIp() {
-        System.out.println("Generating elasticIP address");
-        if (elasticIpAllocationId == null) {
+    // runs on the cluster's elastic-ip lane of the cloud operations pipeline
+    void generateElasticIp(String clusterId) {
+        System.out.println("Generating elasticIP address for cluster " + clusterId);
+        ClusterLeadership leadership = current(clusterId);
+        if (leadership.elasticIpAllocationId == null) {
 
             // Allocate a new Elastic IP address if none exists
-            AllocateAddressRequest allocateRequest = new AllocateAddressRequest();
-            AllocateAddressResult allocateResult = ec2Client.allocateAddress(allocateRequest);
-            elasticIpAllocationId = allocateResult.getAllocationId();
-            setElasticIpAddress(allocateResult.getPublicIp());
+            CloudProvider.AllocatedAddress allocated = cloudProvider.allocateAddress();
+            ClusterLeadership next = leadership.copy();
+            next.elasticIpAllocationId = allocated.getAllocationId();
+            next.elasticIpAddress = allocated.getPublicIp();
+            recordLeadership(next);
             System.out.println("Elastic IP address has been initialized and allocated.");
 
         }
     }
 
-    public void setElasticIpAddress(String elasticIpAddress) {
-        this.elasticIpAddress = elasticIpAddress;
+    public String getElasticIpAddress(String clusterId) {
+        return current(clusterId).elasticIpAddress;
     }
 
-    public String getElasticIpAddress() {
-        if (elasticIpAddress != null) {
-            return elasticIpAddress;
-        } else
-            return null;
+    /*
+     * Clears the cluster's lead broker ahead of electing a new one, but only if
+     * it is still the leader at failedLeaderPrivateIp with failedLeaderEpoch:
+     * a report about a leader that has already been replaced must not wipe out
+     * its successor. Like every leadership change this runs on the cluster's
+     * elastic-ip lane, so nothing can change the leader between the check and
+     * the write. Returns once the change is durable; false if the leader had
+     * already changed. Must not be called from the lane.
+     */
+    public boolean clearLeaderIfCurrent(String clusterId, String failedLeaderPrivateIp, long failedLeaderEpoch) {
+        AtomicBoolean cleared = new AtomicBoolean();
+        cloudOperationsPipeline.submit(CloudOperationsPipeline.elasticIpLane(clusterId),
+                "clear lead broker " + failedLeaderPrivateIp + " of cluster " + clusterId,
+                () -> {
+                    ClusterLeadership leadership = current(clusterId);
+                    if (failedLeaderPrivateIp.equals(leadership.leaderPrivateIp)
+                            && leadership.leaderEpoch == failedLeaderEpoch) {
+                        ClusterLeadership next = leadership.copy();
+                        next.leaderPrivateIp = null;
+                        recordLeadership(next);
+                        cleared.set(true);
+                    }
+                }).getCompletion().join();
+        return cleared.get();
+    }
 
+    public String getleadEC2BrokerPrivateIP(String clusterId) {
+        return current(clusterId).leaderPrivateIp;
     }
 
-    public void setleadEC2BrokerPrivateIP(String leaderInstancePrivateIPAddress) {
-        this.leaderInstancePrivateIPAddress = leaderInstancePrivateIPAddress;
+    public String getCurrentLeaderInstanceId(String clusterId) {
+        return current(clusterId).leaderInstanceId;
     }
 
-    public String getleadEC2BrokerPrivateIP() {
-        if (leaderInstancePrivateIPAddress != null) {
-            return this.leaderInstancePrivateIPAddress;
-        } else
-            return null;
+    public long getLeaderEpoch(String clusterId) {
+        return current(clusterId).leaderEpoch;
     }
 
-    public String getCurrentLeaderInstanceId() {
-        return this.currentLeaderInstanceId;
+    // the cluster's current leadership as handed to watchers
+    public LeadershipView getLeadership(String clusterId) {
+        return current(clusterId).view();
     }
 
     /*
      * Broker EC2 Node must be registered and elaticIP must exist for the
      * association. Helps prevent external non-registered EC2
-     * instance from being associated with the AWS Elastic IP Address
-     */
-    public synchronized void associateElasticIpWithLeader(String leaderInstanceId) {
-        if (elasticIpAllocationId != null && isInstanceRegistered(leaderInstanceId)) {
-            AssociateAddressRequest associateRequest = new AssociateAddressRequest()
-                    .withInstanceId(leaderInstanceId)
-                    .withAllocationId(elasticIpAllocationId);
-            ec2Client.associateAddress(associateRequest);
+     * instance from being associated with the AWS Elastic IP Address.
+     * Runs on the cluster's elastic-ip lane of the cloud operations pipeline.
+     * knownPrivateIp may be null, in which case it is looked up.
+     */
+    void associateElasticIpWithLeader(String clusterId, String leaderInstanceId, String knownPrivateIp) {
+        ClusterLeadership leadership = current(clusterId);
+        if (leadership.elasticIpAllocationId != null && isInstanceRegistered(clusterId, leaderInstanceId)) {
+            ClusterLeadership next = leadership.copy();
+            // remembered so that disassociation needs no findAssociationId lookup
+            next.elasticIpAssociationId = cloudProvider.associateAddress(leadership.elasticIpAllocationId,
+                    leaderInstanceId);
             System.out.println("ElasticIP Address has been associated with leader broker node.");
-            this.currentLeaderInstanceId = leaderInstanceId;
 
             // Get the private IP address associated with the leaderInstanceId
-            System.out.println("Fetching private IP address of the leader broker node's EC2 instance");
-            String leaderPrivateIpAddress = getPrivateIpAddressByInstanceId(leaderInstanceId);
+            String leaderPrivateIpAddress = knownPrivateIp;
+            if (leaderPrivateIpAddress == null) {
+                System.out.println("Fetching private IP address of the leader broker node's EC2 instance");
+                leaderPrivateIpAddress = getPrivateIpAddressByInstanceId(leaderInstanceId);
+            }
 
-            setleadEC2BrokerPrivateIP(leaderPrivateIpAddress);
+            setLeader(next, leaderInstanceId, leaderPrivateIpAddress);
             System.out.println("Lead broker node's private IP at coordinator server is updated.");
             System.out.println(
                     "Current leader broker's Private IP address is updated at Coordinator server for new elected lead broker");
@@ -151,38 +576,46 @@ public class CoordinatorServerService {
 
     // should now seek public ipv4 address
     private String getPrivateIpAddressByInstanceId(String instanceId) {
-        DescribeInstancesRequest request = new DescribeInstancesRequest()
-                .withInstanceIds(instanceId);
-
-        DescribeInstancesResult response = ec2Client.describeInstances(request);
-
-        for (Reservation reservation : response.getReservations()) {
-            for (Instance instance : reservation.getInstances()) {
-                if (instance.getInstanceId().equals(instanceId)) {
-
-                    return instance.getPrivateIpAddress();
-                }
-
-            }
+        String privateIpAddress = instanceMetadataCache.getPrivateIpAddress(instanceId);
+        if (privateIpAddress == null) {
+            System.out.println("Failed to get a private IP address of elected leader node. Value returned is null.");
         }
-        System.out.println("Failed to get a private IP address of elected leader node. Value returned is null.");
-        return null; // Return null if instance with the given ID is not found
+        return privateIpAddress; // null if instance with the given ID is not found
     }
 
-    private synchronized void disassociateElasticIp(String instanceId) {
-        System.out.println("Disassociating ElasticIP address");
-        DescribeAddressesResult describeResult = ec2Client.describeAddresses();
-        List<Address> addresses = describeResult.getAddresses();
+    // only called from the cluster's elastic-ip lane, so the epoch increment is not racy
+    private void setLeader(ClusterLeadership next, String leaderInstanceId, String leaderPrivateIpAddress) {
+        next.leaderInstanceId = leaderInstanceId;
+        next.leaderPrivateIp = leaderPrivateIpAddress;
+        next.leaderEpoch++;
+        recordLeadership(next);
+    }
 
-        for (Address address : addresses) {
-            if (address.getInstanceId() != null && address.getInstanceId().equals(instanceId)) {
-                DisassociateAddressRequest disassociateRequest = new DisassociateAddressRequest()
-                        .withAssociationId(address.getAssociationId());
+    /*
+     * Persists a changed copy of the cluster's leadership; applying it swaps
+     * the copy in and publishes it to watchers once it is durable. Only called
+     * from the cluster's elastic-ip lane.
+     */
+    private void recordLeadership(ClusterLeadership next) {
+        persist(next.event());
+    }
 
-                ec2Client.disassociateAddress(disassociateRequest);
-                System.out.println("Elastic IP Address Disassociated");
-                break;
+    // runs on the cluster's elastic-ip lane of the cloud operations pipeline
+    private void disassociateElasticIp(String clusterId, String instanceId) {
+        System.out.println("Disassociating ElasticIP address of cluster " + clusterId);
+        ClusterLeadership leadership = current(clusterId);
+        ClusterLeadership next = leadership.copy();
+        String associationId = instanceId.equals(leadership.leaderInstanceId) ? leadership.elasticIpAssociationId
+                : null;
+        if (associationId == null) {
+            associationId = findAssociationId(leadership, instanceId);
+        }
+        if (associationId != null) {
+            cloudProvider.disassociateAddress(associationId);
+            if (associationId.equals(leadership.elasticIpAssociationId)) {
+                next.elasticIpAssociationId = null;
             }
+            System.out.println("Elastic IP Address Disassociated");
         }
 
         // if there are 0 EC2 broker nodes active, the elastic IP address should not be
@@ -192,33 +625,98 @@ public class CoordinatorServerService {
         // So, the below function sets the elasticIPAddress and
         // leaderInstancePrivateIPAddress to null
 
-        if (brokerInstanceMap.isEmpty()) {
+        if (brokerRegistry.isEmpty(clusterId)) {
             System.out.println(
                     "No nodes in broker cluster. Setting elasticIP address and leaderInstancePrivateIPAddress to null.");
-            this.elasticIpAddress = null;
-            this.leaderInstancePrivateIPAddress = null;
+            next.elasticIpAddress = null;
+            next.leaderPrivateIp = null;
         }
+        recordLeadership(next);
+
+    }
 
+    // fallback when the association ID is not known: look up only the cluster's own elastic IP
+    private String findAssociationId(ClusterLeadership leadership, String instanceId) {
+        if (leadership.elasticIpAllocationId == null) {
+            return null;
+        }
+        return cloudProvider.findAssociationId(leadership.elasticIpAllocationId, instanceId);
     }
 
-    public synchronized void electNewLeaderAndAssociateElasticIp() {
-        System.out.println("Leader election is now executing over nodes in broker cluster");
-        if (!brokerInstanceMap.isEmpty()) {
-            int maxUniqueId = Collections.max(brokerInstanceMap.keySet());
-            String newLeaderInstanceId = brokerInstanceMap.get(maxUniqueId);
+    /*
+     * Picks the cluster's new leader from its registry and queues the elastic IP
+     * re-association on the cluster's lane. Returns the queued operation, or null
+     * if no broker is left to lead.
+     */
+    public CloudOperation electNewLeaderAndAssociateElasticIp(String clusterId) {
+        System.out.println("Leader election is now executing over nodes in broker cluster " + clusterId);
+        // the succession plan has already ranked the brokers and verified the best standby
+        SuccessionPlan.Standby nextLeader = successionPlan.nextLeader(clusterId);
+        if (nextLeader != null) {
+            String newLeaderInstanceId = nextLeader.getInstanceId();
+            String newLeaderPrivateIp = nextLeader.getPrivateIp();
             System.out.println(
-                    "The broker who's UniqueID is the maximum and is registered with Coordinator Server is elected as new lead broker node. Max uniqueID value of elected leader broker nodes is: "
-                            + maxUniqueId);
+                    "The top ranked standby broker registered with Coordinator Server is elected as new lead broker node. UniqueID of elected leader broker node is: "
+                            + nextLeader.getUniqueId() + (nextLeader.isReachable() ? " (verified)" : " (not verified)"));
             System.out.println("Associtaing Elastic IP with new elected leader node...");
-            associateElasticIpWithLeader(newLeaderInstanceId);
+            return cloudOperationsPipeline.submit(CloudOperationsPipeline.elasticIpLane(clusterId),
+                    "associate elastic IP of cluster " + clusterId + " with new leader " + newLeaderInstanceId,
+                    () -> associateElasticIpWithLeader(clusterId, newLeaderInstanceId, newLeaderPrivateIp));
         } else {
             System.out.println("Broker cluster is no longer in service. No broker node to be selected as leader.");
+            return null;
         }
     }
 
-    private void terminateEC2Instance(String instanceId) {
-        TerminateInstancesRequest terminateRequest = new TerminateInstancesRequest().withInstanceIds(instanceId);
-        ec2Client.terminateInstances(terminateRequest);
+    private void terminateEC2Instances(List<String> instanceIds) {
+        cloudProvider.terminateInstances(instanceIds);
+    }
+
+    /*
+     * Leadership of one broker cluster. An instance is never changed once it is
+     * in leaderships: a change is made on a copy, persisted, and applying it
+     * swaps the copy in, so every reader, persisted event and published view
+     * sees one consistent leadership. Changes are only made on the cluster's
+     * elastic-ip lane, one at a time, so none is lost and the epoch never goes
+     * backwards; replicas take them from the coordinator leader's events.
+     */
+    private static final class ClusterLeadership {
+        final String clusterId;
+        String elasticIpAddress;
+        String elasticIpAllocationId;
+        String elasticIpAssociationId;
+        String leaderInstanceId;
+        String leaderPrivateIp;
+        // incremented every time the elastic IP is associated with a leader
+        long leaderEpoch;
+
+        ClusterLeadership(String clusterId) {
+            this.clusterId = clusterId;
+        }
+
+        // the leadership a LEADERSHIP_CHANGED event carries
+        ClusterLeadership(CoordinatorEvent event) {
+            this(event.getClusterId());
+            elasticIpAddress = event.getString("elasticIpAddress");
+            elasticIpAllocationId = event.getString("elasticIpAllocationId");
+            elasticIpAssociationId = event.getString("elasticIpAssociationId");
+            leaderInstanceId = event.getString("leaderInstanceId");
+            leaderPrivateIp = event.getString("leaderPrivateIp");
+            leaderEpoch = event.getLeaderEpoch();
+        }
+
+        ClusterLeadership copy() {
+            return new ClusterLeadership(event());
+        }
+
+        CoordinatorEvent event() {
+            return CoordinatorEvent.leadershipChanged(clusterId, elasticIpAddress, elasticIpAllocationId,
+                    elasticIpAssociationId, leaderInstanceId, leaderPrivateIp, leaderEpoch);
+        }
+
+        LeadershipView view() {
+            return new LeadershipView(clusterId, leaderEpoch, elasticIpAddress, leaderPrivateIp, leaderInstanceId);
+        }
     }
 
 }
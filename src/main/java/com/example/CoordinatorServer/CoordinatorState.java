@@ -0,0 +1,171 @@
+package com.example.CoordinatorServer;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/*
+ * Plain model of everything the coordinator must remember across restarts: the
+ * brokers and the leadership of every broker cluster. The state log keeps one
+ * up to date by applying every event it writes, which is what it snapshots,
+ * and rebuilds one on boot from the snapshot plus the log.
+ */
+public class CoordinatorState {
+    private final Map<String, ClusterState> clusters = new TreeMap<>();
+
+    public void apply(CoordinatorEvent event) {
+        cluster(event.getClusterId()).apply(event);
+    }
+
+    public Map<String, ClusterState> getClusters() {
+        return clusters;
+    }
+
+    // the state of the given cluster, created empty if there is none yet
+    public ClusterState cluster(String clusterId) {
+        return clusters.computeIfAbsent(clusterId, ClusterState::new);
+    }
+
+    public int getBrokerCount() {
+        int count = 0;
+        for (ClusterState cluster : clusters.values()) {
+            count += cluster.brokers.size();
+        }
+        return count;
+    }
+
+    public boolean isEmpty() {
+        for (ClusterState cluster : clusters.values()) {
+            if (!cluster.isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public JSONObject toJson() {
+        JSONArray clusterArray = new JSONArray();
+        for (ClusterState cluster : clusters.values()) {
+            clusterArray.put(cluster.toJson());
+        }
+        return new JSONObject().put("clusters", clusterArray);
+    }
+
+    public static CoordinatorState fromJson(JSONObject json) {
+        CoordinatorState state = new CoordinatorState();
+        if (!json.has("clusters")) {
+            // written before brokers were grouped into clusters: all of it is the default cluster
+            state.cluster(Broker.DEFAULT_CLUSTER).readJson(json);
+            return state;
+        }
+        JSONArray clusterArray = json.getJSONArray("clusters");
+        for (int i = 0; i < clusterArray.length(); i++) {
+            JSONObject clusterJson = clusterArray.getJSONObject(i);
+            state.cluster(clusterJson.getString("clusterId")).readJson(clusterJson);
+        }
+        return state;
+    }
+
+    /*
+     * Brokers and leadership of one broker cluster.
+     */
+    public static final class ClusterState {
+        private final String clusterId;
+        private final Map<Integer, Broker> brokers = new TreeMap<>();
+        private String elasticIpAddress;
+        private String elasticIpAllocationId;
+        private String elasticIpAssociationId;
+        private String leaderInstanceId;
+        private String leaderPrivateIp;
+        private long leaderEpoch;
+
+        public ClusterState(String clusterId) {
+            this.clusterId = clusterId;
+        }
+
+        public void apply(CoordinatorEvent event) {
+            switch (event.getType()) {
+                case BROKER_REGISTERED:
+                    Broker broker = event.getBroker();
+                    brokers.put(broker.getUniqueId(), broker);
+                    break;
+                case BROKER_DEREGISTERED:
+                    brokers.remove(event.getUniqueId());
+                    break;
+                case LEADERSHIP_CHANGED:
+                    elasticIpAddress = event.getString("elasticIpAddress");
+                    elasticIpAllocationId = event.getString("elasticIpAllocationId");
+                    elasticIpAssociationId = event.getString("elasticIpAssociationId");
+                    leaderInstanceId = event.getString("leaderInstanceId");
+                    leaderPrivateIp = event.getString("leaderPrivateIp");
+                    leaderEpoch = event.getLeaderEpoch();
+                    break;
+            }
+        }
+
+        public String getClusterId() {
+            return clusterId;
+        }
+
+        public Map<Integer, Broker> getBrokers() {
+            return brokers;
+        }
+
+        public String getElasticIpAddress() {
+            return elasticIpAddress;
+        }
+
+        public String getElasticIpAllocationId() {
+            return elasticIpAllocationId;
+        }
+
+        public String getElasticIpAssociationId() {
+            return elasticIpAssociationId;
+        }
+
+        public String getLeaderInstanceId() {
+            return leaderInstanceId;
+        }
+
+        public String getLeaderPrivateIp() {
+            return leaderPrivateIp;
+        }
+
+        public long getLeaderEpoch() {
+            return leaderEpoch;
+        }
+
+        public boolean isEmpty() {
+            return brokers.isEmpty() && elasticIpAllocationId == null;
+        }
+
+        public CoordinatorEvent leadershipEvent() {
+            return CoordinatorEvent.leadershipChanged(clusterId, elasticIpAddress, elasticIpAllocationId,
+                    elasticIpAssociationId, leaderInstanceId, leaderPrivateIp, leaderEpoch);
+        }
+
+        JSONObject toJson() {
+            JSONArray brokerArray = new JSONArray();
+            for (Broker broker : brokers.values()) {
+                brokerArray.put(CoordinatorEvent.brokerToJson(broker));
+            }
+            return new JSONObject().put("clusterId", clusterId).put("leadership", leadershipEvent().toJson())
+                    .put("brokers", brokerArray);
+        }
+
+        void readJson(JSONObject json) {
+            JSONObject leadership = json.getJSONObject("leadership");
+            // the leadership may predate cluster IDs; it belongs to this cluster either way
+            leadership.getJSONObject("payload").put("clusterId", clusterId);
+            apply(CoordinatorEvent.fromJson(leadership));
+            JSONArray brokerArray = json.getJSONArray("brokers");
+            for (int i = 0; i < brokerArray.length(); i++) {
+                Broker broker = CoordinatorEvent.brokerFromJson(brokerArray.getJSONObject(i));
+                broker.setClusterId(clusterId);
+                brokers.put(broker.getUniqueId(), broker);
+            }
+        }
+    }
+}
@@ -0,0 +1,346 @@
+package com.example.CoordinatorServer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.zip.CRC32;
+
+import org.json.JSONObject;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+
+/*
+ * Durable, append-only log of CoordinatorEvents with periodic compacted
+ * snapshots, so a restarted coordinator comes back with its registry, elastic
+ * IP and leader instead of forcing every broker to re-register.
+ *
+ * Layout under coordinator.state.dir:
+ *   coordinator.wal       records of [int length][int crc32][UTF-8 JSON]
+ *   coordinator.snapshot  full CoordinatorState as JSON, written atomically
+ *
+ * Writers hand their record to a single writer thread and wait for it. That
+ * thread writes everything queued so far with one gathering write and one
+ * fsync (group commit), then completes all of the waiting writers together.
+ * Every coordinator.state.snapshot-every records it writes a snapshot of the
+ * state it has been applying and starts a new, empty log. The log is locked
+ * while open, so each coordinator process needs its own state directory.
+ */
+@Component
+public class CoordinatorStateLog {
+    private static final int MAX_BATCH = 512;
+    private static final String WAL_FILE = "coordinator.wal";
+    private static final String SNAPSHOT_FILE = "coordinator.snapshot";
+    // queued by close() to stop the writer thread after everything before it is written
+    private static final PendingRecord STOP = new PendingRecord(null);
+
+    private final boolean enabled;
+    private final Path directory;
+    private final boolean fsync;
+    private final int snapshotEvery;
+
+    private final BlockingQueue<PendingRecord> queue = new LinkedBlockingQueue<>();
+    // applied by the writer thread only; always matches what is durable on disk
+    private CoordinatorState durableState = new CoordinatorState();
+    private long lastSequence;
+    private int recordsSinceSnapshot;
+    private FileChannel walChannel;
+    // set if a failed batch could not be cut off the log; nothing may be appended after it
+    private IOException unrecoverable;
+    private Thread writerThread;
+    private volatile boolean closed;
+
+    public CoordinatorStateLog(@Value("${coordinator.state.enabled:true}") boolean enabled,
+            @Value("${coordinator.state.dir:coordinator-state}") String directory,
+            @Value("${coordinator.state.fsync:true}") boolean fsync,
+            @Value("${coordinator.state.snapshot-every:1000}") int snapshotEvery) {
+        this.enabled = enabled;
+        this.directory = Paths.get(directory);
+        this.fsync = fsync;
+        this.snapshotEvery = snapshotEvery;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /*
+     * Loads the latest snapshot, replays the log on top of it and opens the log
+     * for appending. Must be called once, before the first record().
+     */
+    public synchronized CoordinatorState recover() {
+        if (!enabled) {
+            return new CoordinatorState();
+        }
+        long startNanos = System.nanoTime();
+        try {
+            Files.createDirectories(directory);
+            Path snapshotPath = directory.resolve(SNAPSHOT_FILE);
+            if (Files.exists(snapshotPath)) {
+                JSONObject snapshot = new JSONObject(Files.readString(snapshotPath, StandardCharsets.UTF_8));
+                durableState = CoordinatorState.fromJson(snapshot.getJSONObject("state"));
+                lastSequence = snapshot.getLong("lastSequence");
+            }
+            walChannel = FileChannel.open(directory.resolve(WAL_FILE), StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+            lockDirectory();
+            int replayed = replay();
+            System.out.println("Coordinator state recovered from " + directory.toAbsolutePath() + ": "
+                    + durableState.getBrokerCount() + " broker(s), " + replayed + " log record(s) replayed in "
+                    + (System.nanoTime() - startNanos) / 1_000_000 + " ms");
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not recover coordinator state from " + directory, e);
+        }
+        writerThread = new Thread(this::writeLoop, "coordinator-state-log");
+        writerThread.setDaemon(true);
+        writerThread.start();
+        return durableState;
+    }
+
+    /*
+     * Appends the event and returns once it is durable. Concurrent callers share
+     * one fsync.
+     */
+    public void record(CoordinatorEvent event) {
+        recordAll(List.of(event));
+    }
+
+    // appends the events in order and returns once all of them are durable
+    public void recordAll(List<CoordinatorEvent> events) {
+        awaitDurable(append(events));
+    }
+
+    /*
+     * Queues the events behind everything queued before and returns right
+     * away; the future completes once all of them are durable. A caller that
+     * must keep the log in the same order as its in-memory changes queues
+     * while holding the lock that orders those changes and waits after
+     * releasing it.
+     */
+    public CompletableFuture<Void> append(List<CoordinatorEvent> events) {
+        if (!enabled || writerThread == null || closed || events.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        CompletableFuture<?>[] durable = new CompletableFuture<?>[events.size()];
+        List<PendingRecord> pendings = new ArrayList<>(events.size());
+        for (CoordinatorEvent event : events) {
+            PendingRecord pending = new PendingRecord(event);
+            durable[pendings.size()] = pending.durable;
+            pendings.add(pending);
+        }
+        // queued back to back, so the writer thread normally takes them in one group commit
+        queue.addAll(pendings);
+        return durable.length == 1 ? pendings.get(0).durable : CompletableFuture.allOf(durable);
+    }
+
+    // waits for a future from append()
+    public static void awaitDurable(CompletableFuture<Void> durable) {
+        try {
+            durable.join();
+        } catch (CompletionException e) {
+            throw new IllegalStateException("Could not persist coordinator events", e.getCause());
+        }
+    }
+
+    // two coordinators appending to one log would corrupt it; held until the log is closed
+    private void lockDirectory() throws IOException {
+        FileLock lock;
+        try {
+            lock = walChannel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            lock = null;
+        }
+        if (lock == null) {
+            walChannel.close();
+            throw new IllegalStateException("Coordinator state in " + directory.toAbsolutePath()
+                    + " is in use by another coordinator; give every replica its own coordinator.state.dir");
+        }
+    }
+
+    // reads every intact record with a memory-mapped view and truncates a torn tail
+    private int replay() throws IOException {
+        long size = walChannel.size();
+        if (size == 0) {
+            return 0;
+        }
+        MappedByteBuffer buffer = walChannel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        int replayed = 0;
+        long validEnd = 0;
+        CRC32 crc = new CRC32();
+        while (buffer.remaining() >= 8) {
+            int length = buffer.getInt();
+            int checksum = buffer.getInt();
+            if (length <= 0 || length > buffer.remaining()) {
+                break;
+            }
+            byte[] bytes = new byte[length];
+            buffer.get(bytes);
+            crc.reset();
+            crc.update(bytes);
+            if ((int) crc.getValue() != checksum) {
+                break;
+            }
+            JSONObject record = new JSONObject(new String(bytes, StandardCharsets.UTF_8));
+            long sequence = record.getLong("seq");
+            // records already folded into the snapshot are skipped
+            if (sequence > lastSequence) {
+                durableState.apply(CoordinatorEvent.fromJson(record.getJSONObject("event")));
+                lastSequence = sequence;
+                recordsSinceSnapshot++;
+                replayed++;
+            }
+            validEnd = buffer.position();
+        }
+        if (validEnd < size) {
+            System.out.println("Discarding " + (size - validEnd) + " byte(s) of incomplete coordinator log tail");
+            walChannel.truncate(validEnd);
+        }
+        walChannel.position(validEnd);
+        return replayed;
+    }
+
+    private void writeLoop() {
+        List<PendingRecord> batch = new ArrayList<>();
+        boolean stopping = false;
+        while (!stopping) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                continue;
+            }
+            queue.drainTo(batch, MAX_BATCH - batch.size());
+            stopping = batch.remove(STOP);
+            if (batch.isEmpty()) {
+                continue;
+            }
+            try {
+                writeBatch(batch);
+                for (PendingRecord pending : batch) {
+                    pending.durable.complete(null);
+                }
+                if (recordsSinceSnapshot >= snapshotEvery) {
+                    compact();
+                }
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Error occurred while writing coordinator state log: " + e.getMessage());
+                for (PendingRecord pending : batch) {
+                    pending.durable.completeExceptionally(e);
+                }
+            }
+            batch.clear();
+        }
+    }
+
+    /*
+     * A batch is either entirely in the log or not at all: if the write or the
+     * fsync fails, the log is cut back to where the batch started, so a torn
+     * record cannot hide the records written after it from replay, and the
+     * batch's sequence numbers are only taken once it is durable.
+     */
+    private void writeBatch(List<PendingRecord> batch) throws IOException {
+        if (unrecoverable != null) {
+            throw new IOException("Coordinator state log is unusable after an earlier failure", unrecoverable);
+        }
+        ByteBuffer[] buffers = new ByteBuffer[batch.size()];
+        CRC32 crc = new CRC32();
+        for (int i = 0; i < batch.size(); i++) {
+            CoordinatorEvent event = batch.get(i).event;
+            JSONObject record = new JSONObject().put("seq", lastSequence + i + 1).put("event", event.toJson());
+            byte[] bytes = record.toString().getBytes(StandardCharsets.UTF_8);
+            crc.reset();
+            crc.update(bytes);
+            ByteBuffer buffer = ByteBuffer.allocate(8 + bytes.length);
+            buffer.putInt(bytes.length).putInt((int) crc.getValue()).put(bytes).flip();
+            buffers[i] = buffer;
+        }
+        long remaining = 0;
+        for (ByteBuffer buffer : buffers) {
+            remaining += buffer.remaining();
+        }
+        long batchStart = walChannel.position();
+        try {
+            while (remaining > 0) {
+                remaining -= walChannel.write(buffers);
+            }
+            if (fsync) {
+                walChannel.force(false);
+            }
+        } catch (IOException | RuntimeException e) {
+            try {
+                walChannel.truncate(batchStart);
+                walChannel.position(batchStart);
+            } catch (IOException truncateFailure) {
+                e.addSuppressed(truncateFailure);
+                unrecoverable = truncateFailure;
+            }
+            throw e;
+        }
+        for (PendingRecord pending : batch) {
+            durableState.apply(pending.event);
+        }
+        lastSequence += batch.size();
+        recordsSinceSnapshot += batch.size();
+    }
+
+    // snapshot first, then empty the log; a crash in between only replays skipped records
+    private void compact() throws IOException {
+        JSONObject snapshot = new JSONObject().put("lastSequence", lastSequence).put("state", durableState.toJson());
+        Path temporary = directory.resolve(SNAPSHOT_FILE + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer bytes = ByteBuffer.wrap(snapshot.toString().getBytes(StandardCharsets.UTF_8));
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+            channel.force(true);
+        }
+        Files.move(temporary, directory.resolve(SNAPSHOT_FILE), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        walChannel.truncate(0);
+        walChannel.position(0);
+        recordsSinceSnapshot = 0;
+    }
+
+    @PreDestroy
+    public void close() {
+        closed = true;
+        if (writerThread == null) {
+            return;
+        }
+        queue.add(STOP);
+        try {
+            writerThread.join(5000);
+            walChannel.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            System.err.println("Error occurred while closing coordinator state log: " + e.getMessage());
+        }
+    }
+
+    private static final class PendingRecord {
+        final CoordinatorEvent event;
+        final CompletableFuture<Void> durable = new CompletableFuture<>();
+
+        PendingRecord(CoordinatorEvent event) {
+            this.event = event;
+        }
+    }
+}
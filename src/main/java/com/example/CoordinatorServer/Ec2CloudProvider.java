@@ -0,0 +1,123 @@
+package com.example.CoordinatorServer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.retry.RetryUtils;
+import com.amazonaws.services.ec2.AmazonEC2;
+import com.amazonaws.services.ec2.model.Address;
+import com.amazonaws.services.ec2.model.AllocateAddressRequest;
+import com.amazonaws.services.ec2.model.AllocateAddressResult;
+import com.amazonaws.services.ec2.model.AssociateAddressRequest;
+import com.amazonaws.services.ec2.model.DescribeAddressesRequest;
+import com.amazonaws.services.ec2.model.DescribeAddressesResult;
+import com.amazonaws.services.ec2.model.DescribeInstancesRequest;
+import com.amazonaws.services.ec2.model.DescribeInstancesResult;
+import com.amazonaws.services.ec2.model.DisassociateAddressRequest;
+import com.amazonaws.services.ec2.model.Instance;
+import com.amazonaws.services.ec2.model.Reservation;
+import com.amazonaws.services.ec2.model.TerminateInstancesRequest;
+
+/*
+ * CloudProvider backed by the EC2 API: the elastic address is an Elastic IP.
+ * The SDK client retries throttled calls itself; what still fails is rethrown
+ * as CloudProviderException.
+ */
+public class Ec2CloudProvider implements CloudProvider {
+    // EC2 accepts at most this many instance IDs in one call
+    private static final int MAX_INSTANCE_IDS_PER_CALL = 1000;
+
+    // may block the first caller until the client has been built
+    private final Supplier<AmazonEC2> ec2Client;
+
+    public Ec2CloudProvider(Supplier<AmazonEC2> ec2Client) {
+        this.ec2Client = ec2Client;
+    }
+
+    @Override
+    public AllocatedAddress allocateAddress() {
+        AllocateAddressResult result = call("allocateAddress",
+                () -> ec2Client.get().allocateAddress(new AllocateAddressRequest()));
+        return new AllocatedAddress(result.getAllocationId(), result.getPublicIp());
+    }
+
+    @Override
+    public String associateAddress(String allocationId, String instanceId) {
+        AssociateAddressRequest request = new AssociateAddressRequest()
+                .withInstanceId(instanceId)
+                .withAllocationId(allocationId);
+        return call("associateAddress", () -> ec2Client.get().associateAddress(request)).getAssociationId();
+    }
+
+    @Override
+    public void disassociateAddress(String associationId) {
+        DisassociateAddressRequest request = new DisassociateAddressRequest().withAssociationId(associationId);
+        call("disassociateAddress", () -> ec2Client.get().disassociateAddress(request));
+    }
+
+    // describes only the one address rather than every address in the account
+    @Override
+    public String findAssociationId(String allocationId, String instanceId) {
+        DescribeAddressesResult result = call("describeAddresses",
+                () -> ec2Client.get().describeAddresses(new DescribeAddressesRequest().withAllocationIds(allocationId)));
+        for (Address address : result.getAddresses()) {
+            if (instanceId.equals(address.getInstanceId())) {
+                return address.getAssociationId();
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public Map<String, String> describePrivateIpAddresses(Collection<String> instanceIds) {
+        Map<String, String> privateIps = new HashMap<>();
+        for (List<String> chunk : chunks(instanceIds)) {
+            DescribeInstancesResult result = call("describeInstances",
+                    () -> ec2Client.get().describeInstances(new DescribeInstancesRequest().withInstanceIds(chunk)));
+            for (Reservation reservation : result.getReservations()) {
+                for (Instance instance : reservation.getInstances()) {
+                    privateIps.put(instance.getInstanceId(), instance.getPrivateIpAddress());
+                }
+            }
+        }
+        return privateIps;
+    }
+
+    @Override
+    public void terminateInstances(Collection<String> instanceIds) {
+        for (List<String> chunk : chunks(instanceIds)) {
+            call("terminateInstances",
+                    () -> ec2Client.get().terminateInstances(new TerminateInstancesRequest().withInstanceIds(chunk)));
+        }
+    }
+
+    private static List<List<String>> chunks(Collection<String> instanceIds) {
+        List<String> all = new ArrayList<>(instanceIds);
+        List<List<String>> chunks = new ArrayList<>();
+        for (int from = 0; from < all.size(); from += MAX_INSTANCE_IDS_PER_CALL) {
+            chunks.add(new ArrayList<>(all.subList(from, Math.min(from + MAX_INSTANCE_IDS_PER_CALL, all.size()))));
+        }
+        return chunks;
+    }
+
+    private static <T> T call(String operation, Supplier<T> request) {
+        try {
+            return request.get();
+        } catch (AmazonServiceException e) {
+            throw new CloudProviderException(operation + " failed: " + e.getErrorMessage(),
+                    RetryUtils.isThrottlingException(e), e);
+        } catch (AmazonClientException e) {
+            // never reached EC2 or could not read its answer: network trouble is worth a retry, missing
+            // credentials or region are not. Throttling is a service error, handled above
+            throw new CloudProviderException(operation + " failed: " + e.getMessage(),
+                    e.getCause() instanceof IOException, e);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.CoordinatorServer;
+
+/*
+ * Outcome of a reported leader failure. Every report that joined the same
+ * failover receives the same result.
+ */
+public class FailoverResult {
+
+    public enum Outcome {
+        // the leader was replaced (newLeaderPrivateIp may be null if no broker was left)
+        FAILED_OVER,
+        // the leader answered the coordinator's ping, nothing was changed
+        LEADER_ALIVE,
+        // the reported IP is not, or by the time the failover started no longer, the current leader
+        STALE_REPORT
+    }
+
+    private final String clusterId;
+    private final Outcome outcome;
+    private final String failedLeaderPrivateIp;
+    private final long failedLeaderEpoch;
+    private final String newLeaderPrivateIp;
+    private final long newLeaderEpoch;
+    private final BroadcastResult broadcast;
+
+    public FailoverResult(String clusterId, Outcome outcome, String failedLeaderPrivateIp, long failedLeaderEpoch,
+            String newLeaderPrivateIp, long newLeaderEpoch, BroadcastResult broadcast) {
+        this.clusterId = clusterId;
+        this.outcome = outcome;
+        this.failedLeaderPrivateIp = failedLeaderPrivateIp;
+        this.failedLeaderEpoch = failedLeaderEpoch;
+        this.newLeaderPrivateIp = newLeaderPrivateIp;
+        this.newLeaderEpoch = newLeaderEpoch;
+        this.broadcast = broadcast;
+    }
+
+    public String getClusterId() {
+        return clusterId;
+    }
+
+    public Outcome getOutcome() {
+        return outcome;
+    }
+
+    public String getFailedLeaderPrivateIp() {
+        return failedLeaderPrivateIp;
+    }
+
+    public long getFailedLeaderEpoch() {
+        return failedLeaderEpoch;
+    }
+
+    public String getNewLeaderPrivateIp() {
+        return newLeaderPrivateIp;
+    }
+
+    public long getNewLeaderEpoch() {
+        return newLeaderEpoch;
+    }
+
+    public BroadcastResult getBroadcast() {
+        return broadcast;
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.CoordinatorServer;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/*
+ * Hashed timing wheel (Varghese and Lauck) for large numbers of coarse
+ * timeouts. Scheduling is a lock-free enqueue; a single thread moves new
+ * timeouts into their slot and, once per tick, expires the slot under the
+ * hand. Each tick therefore costs only the timeouts that hash to one slot,
+ * however many are outstanding. Deadlines are rounded up to the next tick.
+ *
+ * Timeouts cannot be cancelled; owners that need that check, when a timeout
+ * fires, whether it still applies.
+ */
+public class HashedTimingWheel<T> {
+    private final long tickNanos;
+    private final int mask;
+    private final List<ArrayDeque<Timeout<T>>> wheel;
+    private final Queue<Timeout<T>> pending = new ConcurrentLinkedQueue<>();
+    private final Consumer<List<T>> onExpired;
+    private final Thread worker;
+    private final long startNanos = System.nanoTime();
+    private long tick;
+    private volatile boolean stopped;
+
+    /*
+     * wheelSize is rounded up to a power of two. onExpired is called on the
+     * wheel thread with everything that expired in one tick.
+     */
+    public HashedTimingWheel(String name, long tickMillis, int wheelSize, Consumer<List<T>> onExpired) {
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+        int size = Integer.highestOneBit(Math.max(1, wheelSize - 1)) << 1;
+        this.mask = size - 1;
+        this.wheel = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            wheel.add(new ArrayDeque<>());
+        }
+        this.onExpired = onExpired;
+        this.worker = new Thread(this::run, name);
+        this.worker.setDaemon(true);
+    }
+
+    public void start() {
+        worker.start();
+    }
+
+    public void stop() {
+        stopped = true;
+        worker.interrupt();
+    }
+
+    public void schedule(T item, long deadlineNanos) {
+        pending.add(new Timeout<>(item, deadlineNanos));
+    }
+
+    private void run() {
+        while (!stopped) {
+            long nextTickNanos = startNanos + (tick + 1) * tickNanos;
+            long sleepNanos = nextTickNanos - System.nanoTime();
+            if (sleepNanos > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(sleepNanos);
+                } catch (InterruptedException e) {
+                    continue;
+                }
+            }
+            tick++;
+            transferPending();
+            List<T> expired = expireSlot();
+            if (!expired.isEmpty()) {
+                try {
+                    onExpired.accept(expired);
+                } catch (RuntimeException e) {
+                    System.err.println("Error occurred while handling expired timeouts: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void transferPending() {
+        Timeout<T> timeout;
+        while ((timeout = pending.poll()) != null) {
+            long deadlineTick = Math.max(tick, ceilDiv(timeout.deadlineNanos - startNanos, tickNanos));
+            timeout.remainingRounds = (deadlineTick - tick) / wheel.size();
+            wheel.get((int) (deadlineTick & mask)).add(timeout);
+        }
+    }
+
+    private List<T> expireSlot() {
+        List<T> expired = new ArrayList<>();
+        Iterator<Timeout<T>> slot = wheel.get((int) (tick & mask)).iterator();
+        while (slot.hasNext()) {
+            Timeout<T> timeout = slot.next();
+            if (timeout.remainingRounds > 0) {
+                timeout.remainingRounds--;
+            } else {
+                slot.remove();
+                expired.add(timeout.item);
+            }
+        }
+        return expired;
+    }
+
+    private static long ceilDiv(long x, long y) {
+        return -Math.floorDiv(-x, y);
+    }
+
+    private static final class Timeout<T> {
+        final T item;
+        final long deadlineNanos;
+        long remainingRounds;
+
+        Timeout(T item, long deadlineNanos) {
+            this.item = item;
+            this.deadlineNanos = deadlineNanos;
+        }
+    }
+}
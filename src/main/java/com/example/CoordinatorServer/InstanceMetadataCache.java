@@ -0,0 +1,195 @@
+package com.example.CoordinatorServer;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/*
+ * Private IP address per EC2 instance ID, cached with a TTL.
+ *
+ * Entries are warmed from the Broker records sent to /register-broker, so the
+ * common case never calls the cloud provider. Misses are batched: while one
+ * call is in flight, further misses queue up and are resolved together by the
+ * next call, which asks for all of them at once.
+ */
+@Component
+public class InstanceMetadataCache {
+    private static final int MAX_BATCH_SIZE = 1000;
+
+    private final CloudProvider cloudProvider;
+    private final long ttlNanos;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<String>> pendingLoads = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<String> loadQueue = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean loading = new AtomicBoolean();
+
+    public InstanceMetadataCache(CloudProvider cloudProvider, @Value("${coordinator.instance-cache.ttl-ms:300000}") long ttlMillis) {
+        this.cloudProvider = cloudProvider;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+    }
+
+    public void put(String instanceId, String privateIpAddress) {
+        if (instanceId != null && privateIpAddress != null) {
+            entries.put(instanceId, new Entry(privateIpAddress, System.nanoTime() + ttlNanos));
+        }
+    }
+
+    public void invalidate(String instanceId) {
+        if (instanceId != null) {
+            entries.remove(instanceId);
+        }
+    }
+
+    /*
+     * Returns the private IP of the instance, calling describePrivateIpAddresses
+     * (batched with other concurrent misses) if it is not cached. Returns null if
+     * the cloud provider does not know the instance, or for a null instance ID.
+     */
+    public String getPrivateIpAddress(String instanceId) {
+        if (instanceId == null) {
+            return null;
+        }
+        String cached = getIfFresh(instanceId);
+        if (cached != null) {
+            return cached;
+        }
+        return join(load(instanceId));
+    }
+
+    /*
+     * Resolves several instances at once; every miss goes into the same
+     * describePrivateIpAddresses call. Instances unknown to the cloud provider,
+     * and null instance IDs, are left out.
+     */
+    public Map<String, String> getPrivateIpAddresses(Collection<String> instanceIds) {
+        Map<String, String> result = new HashMap<>();
+        Map<String, CompletableFuture<String>> loads = new HashMap<>();
+        for (String instanceId : instanceIds) {
+            if (instanceId == null) {
+                continue;
+            }
+            String cached = getIfFresh(instanceId);
+            if (cached != null) {
+                result.put(instanceId, cached);
+            } else {
+                loads.put(instanceId, enqueue(instanceId));
+            }
+        }
+        if (!loads.isEmpty()) {
+            drainLoadQueue();
+            for (Map.Entry<String, CompletableFuture<String>> load : loads.entrySet()) {
+                String privateIp = join(load.getValue());
+                if (privateIp != null) {
+                    result.put(load.getKey(), privateIp);
+                }
+            }
+        }
+        return result;
+    }
+
+    private String getIfFresh(String instanceId) {
+        Entry entry = entries.get(instanceId);
+        if (entry == null) {
+            return null;
+        }
+        if (System.nanoTime() - entry.expiresAtNanos > 0) {
+            entries.remove(instanceId, entry);
+            return null;
+        }
+        return entry.privateIpAddress;
+    }
+
+    private CompletableFuture<String> load(String instanceId) {
+        CompletableFuture<String> future = enqueue(instanceId);
+        drainLoadQueue();
+        return future;
+    }
+
+    private CompletableFuture<String> enqueue(String instanceId) {
+        CompletableFuture<String> future = new CompletableFuture<>();
+        CompletableFuture<String> existing = pendingLoads.putIfAbsent(instanceId, future);
+        if (existing != null) {
+            return existing;
+        }
+        loadQueue.add(instanceId);
+        return future;
+    }
+
+    /*
+     * Whichever caller wins the loading flag describes everything queued so far,
+     * in batches, until the queue is empty. Other callers just wait on their
+     * futures.
+     */
+    private void drainLoadQueue() {
+        while (!loadQueue.isEmpty() && loading.compareAndSet(false, true)) {
+            try {
+                List<String> batch = new ArrayList<>();
+                String instanceId;
+                while (batch.size() < MAX_BATCH_SIZE && (instanceId = loadQueue.poll()) != null) {
+                    batch.add(instanceId);
+                }
+                if (!batch.isEmpty()) {
+                    describe(batch);
+                }
+            } finally {
+                loading.set(false);
+            }
+        }
+    }
+
+    private void describe(List<String> instanceIds) {
+        Map<String, String> privateIps;
+        try {
+            System.out.println("Describing " + instanceIds.size() + " EC2 instance(s) to resolve private IP addresses");
+            privateIps = cloudProvider.describePrivateIpAddresses(instanceIds);
+        } catch (RuntimeException e) {
+            for (String instanceId : instanceIds) {
+                CompletableFuture<String> future = pendingLoads.remove(instanceId);
+                if (future != null) {
+                    future.completeExceptionally(e);
+                }
+            }
+            return;
+        }
+        for (String instanceId : instanceIds) {
+            String privateIp = privateIps.get(instanceId);
+            put(instanceId, privateIp);
+            CompletableFuture<String> future = pendingLoads.remove(instanceId);
+            if (future != null) {
+                future.complete(privateIp);
+            }
+        }
+    }
+
+    private static String join(CompletableFuture<String> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private static final class Entry {
+        final String privateIpAddress;
+        final long expiresAtNanos;
+
+        Entry(String privateIpAddress, long expiresAtNanos) {
+            this.privateIpAddress = privateIpAddress;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.CoordinatorServer;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/*
+ * Scrape endpoints for the latency histograms. /metrics/latency is JSON in
+ * milliseconds; /metrics/latency/prometheus is the Prometheus text format in
+ * seconds. Both are cumulative since start.
+ */
+@RestController
+public class LatencyMetricsController {
+    private static final double[] QUANTILES = { 0.5, 0.99, 0.999 };
+    private static final String[] QUANTILE_NAMES = { "p50", "p99", "p999" };
+
+    private final LatencyRecorder latencyRecorder;
+
+    public LatencyMetricsController(LatencyRecorder latencyRecorder) {
+        this.latencyRecorder = latencyRecorder;
+    }
+
+    @GetMapping("/metrics/latency")
+    public Map<String, Map<String, Map<String, Object>>> getLatency() {
+        Map<String, Map<String, Map<String, Object>>> report = new LinkedHashMap<>();
+        latencyRecorder.getHistograms().forEach((family, histograms) -> {
+            Map<String, Map<String, Object>> familyReport = new LinkedHashMap<>();
+            histograms.forEach((name, histogram) -> {
+                long[] values = histogram.quantiles(QUANTILES);
+                Map<String, Object> summary = new LinkedHashMap<>();
+                summary.put("count", histogram.getCount());
+                for (int i = 0; i < QUANTILES.length; i++) {
+                    summary.put(QUANTILE_NAMES[i] + "Ms", values[i] / 1e6);
+                }
+                summary.put("meanMs", histogram.getMeanNanos() / 1e6);
+                summary.put("maxMs", histogram.getMaxNanos() / 1e6);
+                familyReport.put(name, summary);
+            });
+            report.put(family, familyReport);
+        });
+        return report;
+    }
+
+    @GetMapping(value = "/metrics/latency/prometheus", produces = MediaType.TEXT_PLAIN_VALUE)
+    public String getLatencyPrometheus() {
+        StringBuilder text = new StringBuilder();
+        text.append("# TYPE coordinator_latency_seconds summary\n");
+        latencyRecorder.getHistograms().forEach((family, histograms) -> histograms.forEach((name, histogram) -> {
+            String labels = "family=\"" + escape(family) + "\",name=\"" + escape(name) + "\"";
+            long[] values = histogram.quantiles(QUANTILES);
+            for (int i = 0; i < QUANTILES.length; i++) {
+                text.append(String.format(Locale.ROOT, "coordinator_latency_seconds{%s,quantile=\"%s\"} %.9f%n",
+                        labels, QUANTILES[i], values[i] / 1e9));
+            }
+            text.append(String.format(Locale.ROOT, "coordinator_latency_seconds_sum{%s} %.9f%n", labels,
+                    histogram.getTotalNanos() / 1e9));
+            text.append("coordinator_latency_seconds_count{").append(labels).append("} ")
+                    .append(histogram.getCount()).append('\n');
+        }));
+        return text.toString();
+    }
+
+    private static String escape(String label) {
+        return label.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+}
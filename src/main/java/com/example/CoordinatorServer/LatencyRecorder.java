@@ -0,0 +1,42 @@
+package com.example.CoordinatorServer;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.stereotype.Component;
+
+/*
+ * Named latency histograms, grouped into families: "http GET" and friends for
+ * the coordinator's own endpoints, "cloud" for cloud provider calls and
+ * "peer", "heartbeat" and "cluster" for outgoing HTTP calls. Lookups of an
+ * existing histogram do not allocate.
+ */
+@Component
+public class LatencyRecorder {
+
+    private final Map<String, Map<String, LatencyHistogram>> families = new ConcurrentHashMap<>();
+
+    public LatencyHistogram histogram(String family, String name) {
+        Map<String, LatencyHistogram> histograms = families.get(family);
+        if (histograms == null) {
+            histograms = families.computeIfAbsent(family, key -> new ConcurrentHashMap<>());
+        }
+        LatencyHistogram histogram = histograms.get(name);
+        if (histogram == null) {
+            histogram = histograms.computeIfAbsent(name, key -> new LatencyHistogram());
+        }
+        return histogram;
+    }
+
+    public void record(String family, String name, long nanos) {
+        histogram(family, name).record(nanos);
+    }
+
+    // sorted copy of family -> name -> histogram
+    public Map<String, Map<String, LatencyHistogram>> getHistograms() {
+        Map<String, Map<String, LatencyHistogram>> sorted = new TreeMap<>();
+        families.forEach((family, histograms) -> sorted.put(family, new TreeMap<>(histograms)));
+        return sorted;
+    }
+}
@@ -0,0 +1,188 @@
+package com.example.CoordinatorServer;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import jakarta.annotation.PreDestroy;
+
+/*
+ * Tells publishers, subscribers and brokers about leadership changes as they
+ * happen, instead of having them poll /fetch-leadBroker-elasticIP and
+ * /getCurrent-leadBroker-PrivateIP.
+ *
+ * Two kinds of watchers are supported: long-polls, which are parked until the
+ * leadership no longer matches the ETag they sent, and server-sent event
+ * streams, which get every change. Watchers watch one broker cluster, and each
+ * cluster has its own channel, so publishing a change in one cluster never
+ * waits on another. Each channel sends its notifications one after another in
+ * publish order, on threads from BlockingTaskExecutors, so a slow SSE client
+ * never holds up the caller that changed the leadership, nor the watchers of
+ * any other cluster.
+ */
+@Component
+public class LeaderChangeNotifier {
+
+    private final Map<String, Channel> channels = new ConcurrentHashMap<>();
+    private final ExecutorService notifyExecutor;
+
+    public LeaderChangeNotifier(BlockingTaskExecutors blockingTaskExecutors) {
+        this.notifyExecutor = blockingTaskExecutors.newExecutor("leader-watch-");
+    }
+
+    public LeadershipView current(String clusterId) {
+        return channel(clusterId).current;
+    }
+
+    // called by the service after every leadership change has been made durable
+    public void publish(LeadershipView view) {
+        Channel channel = channel(view.getClusterId());
+        channel.publishLock.lock();
+        try {
+            if (view.getEtag().equals(channel.current.getEtag())) {
+                return;
+            }
+            channel.current = view;
+            enqueue(channel, () -> notifyWatchers(channel, view));
+        } finally {
+            channel.publishLock.unlock();
+        }
+    }
+
+    /*
+     * Parks a long-poll until the cluster's leadership differs from knownEtag.
+     * Answers right away if it already differs; the caller turns a timeout into
+     * a 304.
+     */
+    public void watch(String clusterId, String knownEtag, DeferredResult<ResponseEntity<LeadershipView>> result) {
+        Channel channel = channel(clusterId);
+        LongPoll poll = new LongPoll(knownEtag, result);
+        result.onCompletion(() -> channel.longPolls.remove(poll));
+        channel.longPolls.add(poll);
+        // registered first and checked second, so a change in between is not missed
+        LeadershipView view = channel.current;
+        if (!view.getEtag().equals(knownEtag)) {
+            result.setResult(response(view));
+        }
+    }
+
+    /*
+     * Adds an SSE stream for the cluster. The current leadership is sent first
+     * unless the client already has it (lastEventId matches).
+     */
+    public void stream(String clusterId, SseEmitter emitter, String lastEventId) {
+        Channel channel = channel(clusterId);
+        emitter.onCompletion(() -> channel.streams.remove(emitter));
+        emitter.onTimeout(() -> channel.streams.remove(emitter));
+        emitter.onError(error -> channel.streams.remove(emitter));
+        channel.streams.add(emitter);
+        channel.publishLock.lock();
+        try {
+            enqueue(channel, () -> {
+                LeadershipView view = channel.current;
+                if (!view.getEtag().equals(lastEventId)) {
+                    send(channel, emitter, view);
+                }
+            });
+        } finally {
+            channel.publishLock.unlock();
+        }
+    }
+
+    public int getWatcherCount() {
+        int count = 0;
+        for (Channel channel : channels.values()) {
+            count += channel.longPolls.size() + channel.streams.size();
+        }
+        return count;
+    }
+
+    @PreDestroy
+    public void stop() {
+        notifyExecutor.shutdownNow();
+        for (Channel channel : channels.values()) {
+            for (SseEmitter emitter : channel.streams) {
+                emitter.complete();
+            }
+        }
+    }
+
+    private Channel channel(String clusterId) {
+        Channel channel = channels.get(clusterId);
+        if (channel == null) {
+            channel = channels.computeIfAbsent(clusterId, Channel::new);
+        }
+        return channel;
+    }
+
+    // publishLock held; runs after everything queued on the channel before
+    private void enqueue(Channel channel, Runnable notification) {
+        channel.notifications = channel.notifications.thenRunAsync(notification, notifyExecutor)
+                .exceptionally(error -> {
+                    System.err.println("Error occurred while notifying leader watchers: " + error.getMessage());
+                    return null;
+                });
+    }
+
+    private void notifyWatchers(Channel channel, LeadershipView view) {
+        for (LongPoll poll : channel.longPolls) {
+            if (!view.getEtag().equals(poll.knownEtag)) {
+                poll.result.setResult(response(view));
+            }
+        }
+        for (SseEmitter emitter : channel.streams) {
+            send(channel, emitter, view);
+        }
+    }
+
+    private void send(Channel channel, SseEmitter emitter, LeadershipView view) {
+        try {
+            emitter.send(SseEmitter.event().name("leader").id(view.getEtag()).data(view));
+        } catch (IOException | IllegalStateException e) {
+            // client went away; the emitter callbacks remove it
+            channel.streams.remove(emitter);
+            emitter.completeWithError(e);
+        }
+    }
+
+    static ResponseEntity<LeadershipView> response(LeadershipView view) {
+        return ResponseEntity.ok().header(HttpHeaders.ETAG, view.getEtag()).body(view);
+    }
+
+    // current leadership and watchers of one broker cluster
+    private static final class Channel {
+        volatile LeadershipView current;
+        // a lock rather than synchronized, so a virtual thread waiting here does not pin its carrier
+        final ReentrantLock publishLock = new ReentrantLock();
+        // the last notification queued; publishLock held
+        CompletableFuture<Void> notifications = CompletableFuture.completedFuture(null);
+        final Queue<LongPoll> longPolls = new ConcurrentLinkedQueue<>();
+        final Set<SseEmitter> streams = ConcurrentHashMap.newKeySet();
+
+        Channel(String clusterId) {
+            this.current = LeadershipView.none(clusterId);
+        }
+    }
+
+    private static final class LongPoll {
+        final String knownEtag;
+        final DeferredResult<ResponseEntity<LeadershipView>> result;
+
+        LongPoll(String knownEtag, DeferredResult<ResponseEntity<LeadershipView>> result) {
+            this.knownEtag = knownEtag;
+            this.result = result;
+        }
+    }
+}
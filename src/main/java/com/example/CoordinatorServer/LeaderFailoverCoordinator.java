@@ -0,0 +1,208 @@
+package com.example.CoordinatorServer;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+
+import org.json.JSONObject;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+
+/*
+ * Replaces a failed lead broker: deregisters it, elects a new leader, moves the
+ * elastic IP and tells the remaining peers. Used both when a peer reports the
+ * leader at /leader-not-responding and when the LeaderHeartbeatMonitor suspects
+ * the leader on its own.
+ *
+ * Failovers are single-flight per failed leader. A failover is keyed by the
+ * broker cluster, the failed leader's private IP and its leader epoch; reports
+ * that arrive while it runs join it, and reports that arrive after it finished
+ * get its result. N peers reporting the same dead leader therefore cost one
+ * ping, one elastic IP re-association and one broadcast. A report that got
+ * past those checks just before another failover replaced the leader is
+ * caught when the leader is cleared, which re-checks the leader IP and epoch
+ * on the cluster's elastic-ip lane and answers STALE_REPORT. Failovers of
+ * different clusters share nothing but the executor and run side by side.
+ */
+@Component
+public class LeaderFailoverCoordinator {
+    private final CoordinatorServerService coordinatorServerService;
+    private final BrokerRegistry brokerRegistry;
+    private final PeerBroadcaster peerBroadcaster;
+    private final BrokerHealthProbe brokerHealthProbe;
+    private final ExecutorService failoverExecutor;
+
+    // in-flight failovers keyed by "<cluster>/<failed leader IP>@<epoch>"
+    private final Map<String, CompletableFuture<FailoverResult>> inFlight = new ConcurrentHashMap<>();
+    // most recent finished failover per "<cluster>/<failed leader IP>", answered to late reports
+    private final Map<String, FailoverResult> completedByFailedLeaderIp = new ConcurrentHashMap<>();
+
+    public LeaderFailoverCoordinator(CoordinatorServerService coordinatorServerService, BrokerRegistry brokerRegistry,
+            PeerBroadcaster peerBroadcaster, BrokerHealthProbe brokerHealthProbe,
+            BlockingTaskExecutors blockingTaskExecutors) {
+        this.coordinatorServerService = coordinatorServerService;
+        this.brokerRegistry = brokerRegistry;
+        this.peerBroadcaster = peerBroadcaster;
+        this.brokerHealthProbe = brokerHealthProbe;
+        this.failoverExecutor = blockingTaskExecutors.newExecutor("leader-failover-");
+    }
+
+    /*
+     * Reports that the leader of the cluster at reportedLeaderPrivateIp is not
+     * responding. If verify is true the coordinator pings the leader first and
+     * only fails over if the ping fails. The returned future completes once the
+     * failover (or the one this report joined) has finished, including the peer
+     * broadcast. The failed leader's instance is terminated.
+     */
+    public CompletableFuture<FailoverResult> reportLeaderFailure(String clusterId, String reportedLeaderPrivateIp,
+            boolean verify) {
+        return reportLeaderFailure(clusterId, reportedLeaderPrivateIp, verify, true);
+    }
+
+    /*
+     * As above; with terminate false the failed leader is only deregistered and
+     * its instance is left running. A report that joins a running failover
+     * gets whatever that failover decided.
+     */
+    public CompletableFuture<FailoverResult> reportLeaderFailure(String clusterId, String reportedLeaderPrivateIp,
+            boolean verify, boolean terminate) {
+        String currentLeaderPrivateIp = coordinatorServerService.getleadEC2BrokerPrivateIP(clusterId);
+        long epoch = coordinatorServerService.getLeaderEpoch(clusterId);
+        String leaderKey = clusterId + "/" + reportedLeaderPrivateIp;
+        String key = leaderKey + "@" + epoch;
+
+        CompletableFuture<FailoverResult> running = inFlight.get(key);
+        if (running == null) {
+            running = findInFlightFor(leaderKey);
+        }
+        if (running != null) {
+            System.out.println("Failover of lead broker " + reportedLeaderPrivateIp
+                    + " is already in progress. Report joins the running failover.");
+            return running;
+        }
+        if (reportedLeaderPrivateIp == null || !reportedLeaderPrivateIp.equals(currentLeaderPrivateIp)) {
+            FailoverResult completed = completedByFailedLeaderIp.get(leaderKey);
+            if (completed != null) {
+                return CompletableFuture.completedFuture(completed);
+            }
+            System.out.println(
+                    "reporting node does not have updated lead broker node's IP. It didn't match with lead broker's IP stored at Coordinator Server. ");
+            return CompletableFuture.completedFuture(new FailoverResult(clusterId,
+                    FailoverResult.Outcome.STALE_REPORT, reportedLeaderPrivateIp, -1, currentLeaderPrivateIp, epoch,
+                    null));
+        }
+
+        CompletableFuture<FailoverResult> started = new CompletableFuture<>();
+        CompletableFuture<FailoverResult> existing = inFlight.putIfAbsent(key, started);
+        if (existing != null) {
+            return existing;
+        }
+        System.out.println(
+                "IP sent by reporting node and stored at Coordinator Server are a match\n verifying if leader broker is indeed non responsive");
+        CompletableFuture
+                .supplyAsync(() -> !verify || !brokerHealthProbe.pingLeader(reportedLeaderPrivateIp), failoverExecutor)
+                .thenCompose(leaderFailed -> leaderFailed
+                        ? failOver(clusterId, reportedLeaderPrivateIp, epoch, terminate)
+                        : CompletableFuture.completedFuture(new FailoverResult(clusterId,
+                                FailoverResult.Outcome.LEADER_ALIVE, reportedLeaderPrivateIp, epoch,
+                                reportedLeaderPrivateIp, epoch, null)))
+                .whenComplete((result, error) -> {
+                    if (result != null && result.getOutcome() == FailoverResult.Outcome.FAILED_OVER) {
+                        completedByFailedLeaderIp.put(leaderKey, result);
+                    }
+                    inFlight.remove(key, started);
+                    if (error != null) {
+                        started.completeExceptionally(error);
+                    } else {
+                        started.complete(result);
+                    }
+                });
+        return started;
+    }
+
+    private CompletableFuture<FailoverResult> findInFlightFor(String leaderKey) {
+        String prefix = leaderKey + "@";
+        for (Map.Entry<String, CompletableFuture<FailoverResult>> entry : inFlight.entrySet()) {
+            if (entry.getKey().startsWith(prefix)) {
+                return entry.getValue();
+            }
+        }
+        return null;
+    }
+
+    private CompletableFuture<FailoverResult> failOver(String clusterId, String failedLeaderPrivateIp,
+            long failedLeaderEpoch, boolean terminate) {
+        System.out.println(
+                "leader node is non responsive. \n Setting value of leader broker at coordinator server as null untill leader election completes.");
+
+        // the leader may have changed since the report was checked, e.g. by a failover that just finished
+        if (!coordinatorServerService.clearLeaderIfCurrent(clusterId, failedLeaderPrivateIp, failedLeaderEpoch)) {
+            System.out.println("Lead broker " + failedLeaderPrivateIp + " was already replaced. Report is stale.");
+            return CompletableFuture.completedFuture(new FailoverResult(clusterId,
+                    FailoverResult.Outcome.STALE_REPORT, failedLeaderPrivateIp, failedLeaderEpoch,
+                    coordinatorServerService.getleadEC2BrokerPrivateIP(clusterId),
+                    coordinatorServerService.getLeaderEpoch(clusterId), null));
+        }
+
+        Integer instanceIDOfFailedLeadBroker = brokerRegistry.findUniqueIdByIpAddress(clusterId,
+                failedLeaderPrivateIp);
+        if (instanceIDOfFailedLeadBroker != null) {
+            System.out.println("Deregistering failed leader broker node");
+            coordinatorServerService.unregisterInstances(clusterId, List.of(instanceIDOfFailedLeadBroker), terminate);
+        } else {
+            System.out.println(
+                    "Failed to find uniqueID associated with the IP address of the failed leader broker node.");
+        }
+        System.out.println("Starting leader election among the other registered broker nodesin cluster");
+
+        CloudOperation association = coordinatorServerService.electNewLeaderAndAssociateElasticIp(clusterId);
+        if (association == null) {
+            return CompletableFuture.completedFuture(new FailoverResult(clusterId, FailoverResult.Outcome.FAILED_OVER,
+                    failedLeaderPrivateIp, failedLeaderEpoch, null, coordinatorServerService.getLeaderEpoch(clusterId),
+                    null));
+        }
+        return association.getCompletion().thenApplyAsync(ignored -> {
+            String newLeadBrokerPrivateIPAddress = coordinatorServerService.getleadEC2BrokerPrivateIP(clusterId);
+            BroadcastResult broadcast = broadcastNewLeader(clusterId, newLeadBrokerPrivateIPAddress);
+            return new FailoverResult(clusterId, FailoverResult.Outcome.FAILED_OVER, failedLeaderPrivateIp,
+                    failedLeaderEpoch, newLeadBrokerPrivateIPAddress,
+                    coordinatorServerService.getLeaderEpoch(clusterId), broadcast);
+        }, failoverExecutor);
+    }
+
+    private BroadcastResult broadcastNewLeader(String clusterId, String newLeadBrokerPrivateIPAddress) {
+        System.out.println("New leader of broker cluster " + clusterId + " is elected.");
+        System.out.println("PrivateIP of new leader broker node: " + newLeadBrokerPrivateIPAddress);
+
+        List<String> peerBrokerIPAddresses = brokerRegistry.snapshot(clusterId)
+                .peerIpAddresses(newLeadBrokerPrivateIPAddress);
+        System.out.println("Sending new elected lead broker's private IP to all registered peer nodes in cluster");
+        return sendNewLeadBrokerPrivateIPToPeerNodes(peerBrokerIPAddresses, newLeadBrokerPrivateIPAddress);
+    }
+
+    public BroadcastResult sendNewLeadBrokerPrivateIPToPeerNodes(List<String> peerBrokerIPAddresses,
+            String newLeadBrokerPrivateIPAddress) {
+        String endpoint = ":8080/updateLeaderIPAndCheckStatus";
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        System.out.println("Sending the new elected broker's private IP address to nodes in the cluster.\n");
+        JSONObject requestBodyJson = new JSONObject();
+        requestBodyJson.put("New LeadBroker's Private IP Address: ", newLeadBrokerPrivateIPAddress);
+        HttpEntity<String> requestEntity = new HttpEntity<>(requestBodyJson.toString(), headers);
+
+        BroadcastResult broadcastResult = peerBroadcaster.broadcast(peerBrokerIPAddresses, endpoint, requestEntity);
+        System.out.println("New elected leader broker node's IP address broadcast to peers: " + broadcastResult);
+        return broadcastResult;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        failoverExecutor.shutdownNow();
+    }
+}
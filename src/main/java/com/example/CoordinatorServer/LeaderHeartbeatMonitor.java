@@ -0,0 +1,217 @@
+package com.example.CoordinatorServer;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/*
+ * Polls the lead broker of every broker cluster (and optionally every broker)
+ * on a fixed interval and feeds the outcome into a phi accrual failure
+ * detector per broker. Once a leader's phi crosses the threshold the monitor
+ * starts the failover of its cluster itself, instead of waiting for a peer to
+ * report the leader at /leader-not-responding. Clusters are checked side by
+ * side, so a leader that is slow to answer delays no other cluster.
+ *
+ * A suspected leader is pinged once more before the failover, and is only
+ * deregistered, never terminated: a detector tuned too tightly should cost a
+ * leader change, not a broker. The monitor is off unless
+ * coordinator.heartbeat.enabled is set.
+ *
+ * With coordinator.heartbeat.monitor-all-brokers the other brokers are probed
+ * on a pool of coordinator.heartbeat.max-concurrent-probes threads, apart from
+ * the leader checks so that a large cluster cannot hold them up. A broker whose
+ * previous probe has not finished is skipped for the round.
+ */
+@Component
+public class LeaderHeartbeatMonitor {
+    private final CoordinatorServerService coordinatorServerService;
+    private final BrokerRegistry brokerRegistry;
+    private final BrokerHealthProbe brokerHealthProbe;
+    private final LeaderFailoverCoordinator leaderFailoverCoordinator;
+    private final BrokerLatencyTracker brokerLatencyTracker;
+    private final RaftNode raftNode;
+    private final BlockingTaskExecutors blockingTaskExecutors;
+
+    private final boolean enabled;
+    private final long intervalMillis;
+    private final double phiThreshold;
+    private final int windowSize;
+    private final double minStdDeviationMillis;
+    private final long acceptablePauseMillis;
+    private final boolean monitorAllBrokers;
+    private final int maxConcurrentProbes;
+
+    // cluster ID -> broker private IP -> detector
+    private final Map<String, Map<String, PhiAccrualFailureDetector>> detectors = new ConcurrentHashMap<>();
+    // "<cluster>/<broker private IP>" of every broker probe queued or running
+    private final Set<String> brokerProbesInFlight = ConcurrentHashMap.newKeySet();
+    private ScheduledExecutorService scheduler;
+    private ExecutorService probeExecutor;
+    private ExecutorService brokerProbeExecutor;
+
+    public LeaderHeartbeatMonitor(CoordinatorServerService coordinatorServerService, BrokerRegistry brokerRegistry,
+            BrokerHealthProbe brokerHealthProbe, LeaderFailoverCoordinator leaderFailoverCoordinator,
+            BrokerLatencyTracker brokerLatencyTracker, RaftNode raftNode, BlockingTaskExecutors blockingTaskExecutors,
+            @Value("${coordinator.heartbeat.enabled:false}") boolean enabled,
+            @Value("${coordinator.heartbeat.interval-ms:500}") long intervalMillis,
+            @Value("${coordinator.heartbeat.phi-threshold:8}") double phiThreshold,
+            @Value("${coordinator.heartbeat.window-size:100}") int windowSize,
+            @Value("${coordinator.heartbeat.min-std-deviation-ms:100}") double minStdDeviationMillis,
+            @Value("${coordinator.heartbeat.acceptable-pause-ms:0}") long acceptablePauseMillis,
+            @Value("${coordinator.heartbeat.monitor-all-brokers:false}") boolean monitorAllBrokers,
+            @Value("${coordinator.heartbeat.max-concurrent-probes:16}") int maxConcurrentProbes) {
+        this.coordinatorServerService = coordinatorServerService;
+        this.brokerRegistry = brokerRegistry;
+        this.brokerHealthProbe = brokerHealthProbe;
+        this.leaderFailoverCoordinator = leaderFailoverCoordinator;
+        this.brokerLatencyTracker = brokerLatencyTracker;
+        this.raftNode = raftNode;
+        this.blockingTaskExecutors = blockingTaskExecutors;
+        this.enabled = enabled;
+        this.intervalMillis = intervalMillis;
+        this.phiThreshold = phiThreshold;
+        this.windowSize = windowSize;
+        this.minStdDeviationMillis = minStdDeviationMillis;
+        this.acceptablePauseMillis = acceptablePauseMillis;
+        this.monitorAllBrokers = monitorAllBrokers;
+        this.maxConcurrentProbes = maxConcurrentProbes;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            System.out.println("Leader heartbeat monitor is disabled.");
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "leader-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        probeExecutor = blockingTaskExecutors.newExecutor("leader-heartbeat-");
+        if (monitorAllBrokers) {
+            brokerProbeExecutor = blockingTaskExecutors.newBoundedExecutor("broker-heartbeat-", maxConcurrentProbes);
+        }
+        scheduler.scheduleWithFixedDelay(this::checkBrokers, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        System.out.println("Leader heartbeat monitor started with an interval of " + intervalMillis + " ms.");
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            probeExecutor.shutdownNow();
+            if (brokerProbeExecutor != null) {
+                brokerProbeExecutor.shutdownNow();
+            }
+        }
+    }
+
+    private void checkBrokers() {
+        try {
+            // only the coordinator leader watches brokers and starts failovers
+            if (!raftNode.isLeader()) {
+                detectors.clear();
+                return;
+            }
+            Set<String> clusterIds = brokerRegistry.clusterIds();
+            detectors.keySet().retainAll(clusterIds);
+            List<CompletableFuture<Void>> checks = new ArrayList<>(clusterIds.size());
+            for (String clusterId : clusterIds) {
+                checks.add(CompletableFuture.runAsync(() -> checkCluster(clusterId), probeExecutor));
+            }
+            CompletableFuture.allOf(checks.toArray(new CompletableFuture[0])).join();
+        } catch (RuntimeException e) {
+            // never let one bad round cancel the scheduled task
+            System.err.println("Error occurred during broker heartbeat round: " + e.getMessage());
+        }
+    }
+
+    private void checkCluster(String clusterId) {
+        Map<String, PhiAccrualFailureDetector> clusterDetectors = detectors.computeIfAbsent(clusterId,
+                key -> new ConcurrentHashMap<>());
+        String leaderIp = coordinatorServerService.getleadEC2BrokerPrivateIP(clusterId);
+        List<String> registeredIps = brokerRegistry.snapshot(clusterId).getIpAddresses();
+        clusterDetectors.keySet().removeIf(ip -> !ip.equals(leaderIp) && !registeredIps.contains(ip));
+
+        if (monitorAllBrokers) {
+            for (String ipAddress : registeredIps) {
+                String probeKey = clusterId + "/" + ipAddress;
+                if (!ipAddress.equals(leaderIp) && brokerProbesInFlight.add(probeKey)) {
+                    brokerProbeExecutor.execute(() -> {
+                        try {
+                            recordProbe(clusterId, clusterDetectors, ipAddress);
+                        } finally {
+                            brokerProbesInFlight.remove(probeKey);
+                        }
+                    });
+                }
+            }
+        }
+        if (leaderIp == null) {
+            return;
+        }
+        recordProbe(clusterId, clusterDetectors, leaderIp);
+        double phi = phi(clusterDetectors, leaderIp);
+        if (phi >= phiThreshold && leaderIp.equals(coordinatorServerService.getleadEC2BrokerPrivateIP(clusterId))) {
+            System.out.println("Lead broker " + leaderIp + " of cluster " + clusterId
+                    + " is suspected to have failed (phi = " + phi + "). Coordinator Server is starting failover.");
+            clusterDetectors.remove(leaderIp);
+            // pinged once more before failing over, and left running; joins a running failover if any
+            leaderFailoverCoordinator.reportLeaderFailure(clusterId, leaderIp, true, false);
+        }
+    }
+
+    private void recordProbe(String clusterId, Map<String, PhiAccrualFailureDetector> clusterDetectors,
+            String ipAddress) {
+        PhiAccrualFailureDetector detector = clusterDetectors.computeIfAbsent(ipAddress, ip -> newDetector());
+        long roundTripNanos = brokerHealthProbe.probe(ipAddress);
+        if (roundTripNanos >= 0) {
+            brokerLatencyTracker.record(clusterId, ipAddress, roundTripNanos);
+            synchronized (detector) {
+                detector.heartbeat(System.currentTimeMillis());
+            }
+        }
+    }
+
+    private PhiAccrualFailureDetector newDetector() {
+        return new PhiAccrualFailureDetector(windowSize, intervalMillis, minStdDeviationMillis, acceptablePauseMillis,
+                System.currentTimeMillis());
+    }
+
+    private double phi(Map<String, PhiAccrualFailureDetector> clusterDetectors, String ipAddress) {
+        PhiAccrualFailureDetector detector = clusterDetectors.get(ipAddress);
+        if (detector == null) {
+            return 0;
+        }
+        synchronized (detector) {
+            return detector.phi(System.currentTimeMillis());
+        }
+    }
+
+    // current suspicion level of every monitored broker of the cluster, keyed by private IP
+    public Map<String, Double> getSuspicionLevels(String clusterId) {
+        Map<String, Double> levels = new LinkedHashMap<>();
+        Map<String, PhiAccrualFailureDetector> clusterDetectors = detectors.get(clusterId);
+        if (clusterDetectors != null) {
+            for (String ipAddress : clusterDetectors.keySet()) {
+                levels.put(ipAddress, phi(clusterDetectors, ipAddress));
+            }
+        }
+        return levels;
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.CoordinatorServer;
+
+import java.util.Collection;
+import java.util.List;
+
+/*
+ * Decides the order in which brokers would take over as lead broker. The
+ * SuccessionPlan keeps its standby list in this order. Select the
+ * implementation with coordinator.succession.ranking.
+ */
+public interface LeaderRankingPolicy {
+
+    // returns the candidates ordered best first
+    List<Broker> rank(Collection<Broker> candidates);
+}
@@ -0,0 +1,72 @@
+package com.example.CoordinatorServer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/*
+ * Watch API for leadership changes.
+ *
+ * GET /watch/leader returns the current leadership with an ETag. Sent again
+ * with If-None-Match set to that ETag, it waits until the leadership changes
+ * (200 with the new one) or the wait times out (304), so a client loops on
+ * one request instead of polling.
+ *
+ * GET /watch/leader/stream is the same as server-sent events: one "leader"
+ * event now and one per change, with the ETag as event id.
+ *
+ * Both watch the default broker cluster; /clusters/{clusterId}/watch/leader
+ * and /clusters/{clusterId}/watch/leader/stream watch the given one.
+ */
+@RestController
+public class LeaderWatchController {
+    private final LeaderChangeNotifier leaderChangeNotifier;
+    private final long longPollTimeoutMillis;
+    private final long streamTimeoutMillis;
+
+    public LeaderWatchController(LeaderChangeNotifier leaderChangeNotifier,
+            @Value("${coordinator.watch.long-poll-timeout-ms:30000}") long longPollTimeoutMillis,
+            @Value("${coordinator.watch.stream-timeout-ms:1800000}") long streamTimeoutMillis) {
+        this.leaderChangeNotifier = leaderChangeNotifier;
+        this.longPollTimeoutMillis = longPollTimeoutMillis;
+        this.streamTimeoutMillis = streamTimeoutMillis;
+    }
+
+    @GetMapping({ "/watch/leader", "/clusters/{clusterId}/watch/leader" })
+    public DeferredResult<ResponseEntity<LeadershipView>> watchLeader(
+            @PathVariable(required = false) String clusterId,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestParam(value = "timeoutMs", required = false) Long timeoutMillis) {
+        String cluster = clusterId == null ? Broker.DEFAULT_CLUSTER : clusterId;
+        long timeout = timeoutMillis == null ? longPollTimeoutMillis : Math.min(timeoutMillis, longPollTimeoutMillis);
+        DeferredResult<ResponseEntity<LeadershipView>> result = new DeferredResult<>(timeout);
+        result.onTimeout(() -> {
+            LeadershipView view = leaderChangeNotifier.current(cluster);
+            result.setResult(view.getEtag().equals(ifNoneMatch)
+                    ? ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(view.getEtag()).build()
+                    : LeaderChangeNotifier.response(view));
+        });
+        if (ifNoneMatch == null) {
+            result.setResult(LeaderChangeNotifier.response(leaderChangeNotifier.current(cluster)));
+        } else {
+            leaderChangeNotifier.watch(cluster, ifNoneMatch, result);
+        }
+        return result;
+    }
+
+    @GetMapping({ "/watch/leader/stream", "/clusters/{clusterId}/watch/leader/stream" })
+    public SseEmitter streamLeader(@PathVariable(required = false) String clusterId,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        SseEmitter emitter = new SseEmitter(streamTimeoutMillis);
+        leaderChangeNotifier.stream(clusterId == null ? Broker.DEFAULT_CLUSTER : clusterId, emitter, lastEventId);
+        return emitter;
+    }
+}
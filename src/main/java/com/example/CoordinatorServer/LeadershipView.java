@@ -0,0 +1,64 @@
+package com.example.CoordinatorServer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+/*
+ * Immutable view of who leads one broker cluster, as handed to watchers. The
+ * ETag is derived from the content only, so every coordinator replica hands
+ * out the same tag for the same leadership.
+ */
+public class LeadershipView {
+    private final String clusterId;
+    private final long epoch;
+    private final String elasticIpAddress;
+    private final String leaderPrivateIp;
+    private final String leaderInstanceId;
+    private final String etag;
+
+    public LeadershipView(String clusterId, long epoch, String elasticIpAddress, String leaderPrivateIp,
+            String leaderInstanceId) {
+        this.clusterId = clusterId;
+        this.epoch = epoch;
+        this.elasticIpAddress = elasticIpAddress;
+        this.leaderPrivateIp = leaderPrivateIp;
+        this.leaderInstanceId = leaderInstanceId;
+        // the epoch alone is not enough: failover clears the leader IP before the epoch moves
+        CRC32 crc = new CRC32();
+        crc.update((clusterId + "|" + elasticIpAddress + "|" + leaderPrivateIp + "|" + leaderInstanceId)
+                .getBytes(StandardCharsets.UTF_8));
+        this.etag = "\"" + epoch + "-" + Long.toHexString(crc.getValue()) + "\"";
+    }
+
+    // no leader and no elastic IP yet
+    static LeadershipView none(String clusterId) {
+        return new LeadershipView(clusterId, 0, null, null, null);
+    }
+
+    public String getClusterId() {
+        return clusterId;
+    }
+
+    public long getEpoch() {
+        return epoch;
+    }
+
+    public String getElasticIpAddress() {
+        return elasticIpAddress;
+    }
+
+    public String getLeaderPrivateIp() {
+        return leaderPrivateIp;
+    }
+
+    public String getLeaderInstanceId() {
+        return leaderInstanceId;
+    }
+
+    @JsonIgnore
+    public String getEtag() {
+        return etag;
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.CoordinatorServer;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/*
+ * The broker best able to take the traffic that follows the elastic IP leads.
+ * Every candidate is scored from its aggregated load and its measured
+ * status-check round trip, each metric divided by the value that counts as
+ * fully loaded and multiplied by its weight; the lowest score wins. A metric
+ * the broker does not report counts as fully loaded, so staying quiet about
+ * a busy queue never makes a broker look idle. Brokers that have not reported
+ * load recently rank after all that have; ties go to the higher uniqueId.
+ */
+@Component
+@ConditionalOnProperty(name = "coordinator.succession.ranking", havingValue = "load-aware")
+public class LoadAwareRankingPolicy implements LeaderRankingPolicy {
+    private final BrokerLoadTracker brokerLoadTracker;
+    private final BrokerLatencyTracker brokerLatencyTracker;
+    private final double cpuWeight;
+    private final double queueDepthWeight;
+    private final double queueDepthFull;
+    private final double messageRateWeight;
+    private final double messageRateFull;
+    private final double latencyWeight;
+    private final double latencyFullMillis;
+
+    public LoadAwareRankingPolicy(BrokerLoadTracker brokerLoadTracker, BrokerLatencyTracker brokerLatencyTracker,
+            @Value("${coordinator.load.cpu-weight:1.0}") double cpuWeight,
+            @Value("${coordinator.load.queue-depth-weight:1.0}") double queueDepthWeight,
+            @Value("${coordinator.load.queue-depth-full:10000}") double queueDepthFull,
+            @Value("${coordinator.load.message-rate-weight:0.5}") double messageRateWeight,
+            @Value("${coordinator.load.message-rate-full:50000}") double messageRateFull,
+            @Value("${coordinator.load.latency-weight:0.5}") double latencyWeight,
+            @Value("${coordinator.load.latency-full-ms:100}") double latencyFullMillis) {
+        this.brokerLoadTracker = brokerLoadTracker;
+        this.brokerLatencyTracker = brokerLatencyTracker;
+        this.cpuWeight = cpuWeight;
+        this.queueDepthWeight = queueDepthWeight;
+        this.queueDepthFull = queueDepthFull;
+        this.messageRateWeight = messageRateWeight;
+        this.messageRateFull = messageRateFull;
+        this.latencyWeight = latencyWeight;
+        this.latencyFullMillis = latencyFullMillis;
+    }
+
+    @Override
+    public List<Broker> rank(Collection<Broker> candidates) {
+        List<ScoredBroker> scored = new ArrayList<>(candidates.size());
+        for (Broker broker : candidates) {
+            scored.add(new ScoredBroker(broker, score(broker)));
+        }
+        scored.sort(Comparator.comparingDouble((ScoredBroker candidate) -> candidate.score)
+                .thenComparing(candidate -> candidate.broker.getUniqueId(), Comparator.reverseOrder()));
+        List<Broker> ranked = new ArrayList<>(scored.size());
+        for (ScoredBroker candidate : scored) {
+            ranked.add(candidate.broker);
+        }
+        return ranked;
+    }
+
+    // lower is better; Double.POSITIVE_INFINITY if the broker has not reported load recently
+    public double score(Broker broker) {
+        BrokerLoad load = brokerLoadTracker.getLoad(broker.getClusterId(), broker.getUniqueId());
+        if (load == null) {
+            return Double.POSITIVE_INFINITY;
+        }
+        double latencyMillis = brokerLatencyTracker.getLatencyMillis(broker.getClusterId(),
+                broker.getIpAddress());
+        // an unmeasured link counts as fully loaded rather than disqualifying a broker that reports load
+        double latency = Double.isInfinite(latencyMillis) ? 1 : latencyMillis / latencyFullMillis;
+        return cpuWeight * fractionOfFull(load.getCpuUtilization(), 1)
+                + queueDepthWeight * fractionOfFull(load.getQueueDepth(), queueDepthFull)
+                + messageRateWeight * fractionOfFull(load.getMessageRate(), messageRateFull)
+                + latencyWeight * latency;
+    }
+
+    // 1 for a metric the broker does not report
+    private static double fractionOfFull(Double metric, double full) {
+        return metric == null ? 1 : metric / full;
+    }
+
+    private static final class ScoredBroker {
+        final Broker broker;
+        final double score;
+
+        ScoredBroker(Broker broker, double score) {
+            this.broker = broker;
+            this.score = score;
+        }
+    }
+}
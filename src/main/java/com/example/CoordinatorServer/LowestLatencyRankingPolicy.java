@@ -0,0 +1,33 @@
+package com.example.CoordinatorServer;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/*
+ * The broker with the lowest measured status-check round trip leads. Brokers
+ * that have not been measured yet rank last; ties go to the higher uniqueId.
+ */
+@Component
+@ConditionalOnProperty(name = "coordinator.succession.ranking", havingValue = "lowest-latency")
+public class LowestLatencyRankingPolicy implements LeaderRankingPolicy {
+    private final BrokerLatencyTracker brokerLatencyTracker;
+
+    public LowestLatencyRankingPolicy(BrokerLatencyTracker brokerLatencyTracker) {
+        this.brokerLatencyTracker = brokerLatencyTracker;
+    }
+
+    @Override
+    public List<Broker> rank(Collection<Broker> candidates) {
+        List<Broker> ranked = new ArrayList<>(candidates);
+        ranked.sort(Comparator
+                .comparingDouble((Broker broker) -> brokerLatencyTracker.getLatencyMillis(broker.getClusterId(),
+                        broker.getIpAddress()))
+                .thenComparing(Comparator.comparingInt(Broker::getUniqueId).reversed()));
+        return ranked;
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.CoordinatorServer;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/*
+ * The broker with the highest uniqueId leads. This is the coordinator's
+ * original election rule and the default policy.
+ */
+@Component
+@ConditionalOnProperty(name = "coordinator.succession.ranking", havingValue = "max-unique-id", matchIfMissing = true)
+public class MaxUniqueIdRankingPolicy implements LeaderRankingPolicy {
+
+    @Override
+    public List<Broker> rank(Collection<Broker> candidates) {
+        List<Broker> ranked = new ArrayList<>(candidates);
+        ranked.sort(Comparator.comparingInt(Broker::getUniqueId).reversed());
+        return ranked;
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.CoordinatorServer;
+
+import java.net.SocketTimeoutException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import jakarta.annotation.PreDestroy;
+
+/*
+ * Sends the same message to every peer broker node at once. Each peer has a
+ * deadline of its own, counted from when its call is sent, and a bounded
+ * number of retries with jittered backoff, so the time taken by a broadcast
+ * tracks the slowest single peer rather than the sum over all peers. Only
+ * failures a second attempt can fix are retried: I/O errors and 5xx answers.
+ */
+@Component
+public class PeerBroadcaster {
+    private final RestTemplate restTemplate;
+    private final ExecutorService executor;
+    private final long deadlineMillis;
+    private final int maxRetries;
+    private final long retryBackoffMillis;
+
+    public PeerBroadcaster(@Qualifier("peerRestTemplate") RestTemplate restTemplate,
+            @Value("${coordinator.peer.deadline-ms:2000}") long deadlineMillis,
+            @Value("${coordinator.peer.max-retries:2}") int maxRetries,
+            @Value("${coordinator.peer.retry-backoff-ms:100}") long retryBackoffMillis,
+            BlockingTaskExecutors blockingTaskExecutors) {
+        this.restTemplate = restTemplate;
+        this.deadlineMillis = deadlineMillis;
+        this.maxRetries = maxRetries;
+        this.retryBackoffMillis = retryBackoffMillis;
+        this.executor = blockingTaskExecutors.newExecutor("peer-broadcast-");
+    }
+
+    /*
+     * POSTs requestEntity to http://<peer><endpoint> for every peer and waits
+     * until each has answered or run past its deadline. A peer still in flight
+     * at its deadline is cancelled and reported as timed out; that does not
+     * cut short the time any other peer has left.
+     */
+    public BroadcastResult broadcast(List<String> peerIPAddresses, String endpoint, HttpEntity<?> requestEntity) {
+        long startNanos = System.nanoTime();
+
+        Map<String, CompletableFuture<Void>> pending = new LinkedHashMap<>();
+        for (String ipAddress : peerIPAddresses) {
+            String url = "http://" + ipAddress + endpoint;
+            long deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(deadlineMillis);
+            CompletableFuture<Void> call = new CompletableFuture<>();
+            Future<?> task = executor.submit(() -> {
+                try {
+                    postWithRetries(url, requestEntity, deadlineNanos);
+                    call.complete(null);
+                } catch (Throwable e) {
+                    call.completeExceptionally(e);
+                }
+            });
+            // the peer's own timer; a call that timed out or was given up on is interrupted
+            call.orTimeout(deadlineMillis, TimeUnit.MILLISECONDS).whenComplete((ignored, failure) -> {
+                if (failure instanceof TimeoutException || failure instanceof CancellationException) {
+                    task.cancel(true);
+                }
+            });
+            pending.put(ipAddress, call);
+        }
+
+        BroadcastResult result = new BroadcastResult();
+        for (Map.Entry<String, CompletableFuture<Void>> entry : pending.entrySet()) {
+            String ipAddress = entry.getKey();
+            try {
+                entry.getValue().get();
+                result.addAcked(ipAddress);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof TimeoutException || isTimeout(cause)) {
+                    result.addTimedOut(ipAddress);
+                } else {
+                    result.addFailed(ipAddress, String.valueOf(cause.getMessage()));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                entry.getValue().cancel(true);
+                result.addFailed(ipAddress, "interrupted");
+            }
+        }
+        result.setElapsedMillis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+        return result;
+    }
+
+    private void postWithRetries(String url, HttpEntity<?> requestEntity, long deadlineNanos)
+            throws InterruptedException {
+        for (int attempt = 0;; attempt++) {
+            try {
+                restTemplate.postForObject(url, requestEntity, Void.class);
+                return;
+            } catch (ResourceAccessException | HttpServerErrorException e) {
+                if (attempt >= maxRetries) {
+                    throw e;
+                }
+                // full jitter: sleep a random amount up to the exponential backoff
+                long backoffMillis = ThreadLocalRandom.current().nextLong(Math.max(1, retryBackoffMillis << attempt)) + 1;
+                long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime());
+                if (backoffMillis >= remainingMillis) {
+                    throw e;
+                }
+                Thread.sleep(backoffMillis);
+            }
+        }
+    }
+
+    private static boolean isTimeout(Throwable throwable) {
+        for (Throwable t = throwable; t != null; t = t.getCause()) {
+            if (t instanceof SocketTimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
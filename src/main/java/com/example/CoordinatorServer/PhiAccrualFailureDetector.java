@@ -0,0 +1,66 @@
+package com.example.CoordinatorServer;
+
+/*
+ * Phi accrual failure detector (Hayashibara et al.). Keeps a sliding window of
+ * the intervals between successful heartbeats and reports phi, the suspicion
+ * level that the node has failed given how long it has been silent. phi = 1
+ * means about a 10% chance the silence is normal, phi = 8 about 1e-8.
+ *
+ * Not thread-safe; each detector is only touched by the heartbeat monitor.
+ */
+public class PhiAccrualFailureDetector {
+    private final long[] intervals;
+    private final double minStdDeviationMillis;
+    private final long acceptablePauseMillis;
+    private int count;
+    private int next;
+    private long sum;
+    private long sumOfSquares;
+    private long lastHeartbeatMillis;
+
+    public PhiAccrualFailureDetector(int windowSize, long expectedIntervalMillis, double minStdDeviationMillis,
+            long acceptablePauseMillis, long nowMillis) {
+        this.intervals = new long[windowSize];
+        this.minStdDeviationMillis = minStdDeviationMillis;
+        this.acceptablePauseMillis = acceptablePauseMillis;
+        this.lastHeartbeatMillis = nowMillis;
+        // seed the window so that phi is meaningful before real samples arrive
+        addInterval(expectedIntervalMillis);
+    }
+
+    public void heartbeat(long nowMillis) {
+        addInterval(nowMillis - lastHeartbeatMillis);
+        lastHeartbeatMillis = nowMillis;
+    }
+
+    public double phi(long nowMillis) {
+        double mean = (double) sum / count + acceptablePauseMillis;
+        double variance = (double) sumOfSquares / count - ((double) sum / count) * ((double) sum / count);
+        double stdDeviation = Math.max(Math.sqrt(Math.max(variance, 0)), minStdDeviationMillis);
+        double y = (nowMillis - lastHeartbeatMillis - mean) / stdDeviation;
+        // logistic approximation of the normal cumulative distribution
+        double e = Math.exp(-y * (1.5976 + 0.070566 * y * y));
+        if (nowMillis - lastHeartbeatMillis > mean) {
+            return -Math.log10(e / (1.0 + e));
+        }
+        return -Math.log10(1.0 - 1.0 / (1.0 + e));
+    }
+
+    public long getLastHeartbeatMillis() {
+        return lastHeartbeatMillis;
+    }
+
+    private void addInterval(long intervalMillis) {
+        if (count == intervals.length) {
+            long evicted = intervals[next];
+            sum -= evicted;
+            sumOfSquares -= evicted * evicted;
+        } else {
+            count++;
+        }
+        intervals[next] = intervalMillis;
+        next = (next + 1) % intervals.length;
+        sum += intervalMillis;
+        sumOfSquares += intervalMillis * intervalMillis;
+    }
+}
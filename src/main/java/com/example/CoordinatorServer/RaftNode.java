@@ -0,0 +1,793 @@
+package com.example.CoordinatorServer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import jakarta.annotation.PreDestroy;
+
+/*
+ * Raft-style replication of the coordinator state between several coordinator
+ * processes (coordinator.cluster.enabled=true).
+ *
+ * The replicated log carries the same CoordinatorEvents that the state log
+ * persists. Only the coordinator leader initiates changes or talks to EC2; it
+ * appends a change's event here and waits until a majority of replicas hold
+ * it. Every replica, the leader included, applies events to its registry and
+ * leadership only once they have committed, so any replica can answer reads
+ * and no replica ever holds a change that a later leader could drop. Writes that reach a
+ * follower are forwarded to the leader by ClusterWriteForwardingInterceptor.
+ *
+ * Differences from the Raft paper: the log itself lives in memory and only the
+ * applied state (through CoordinatorStateLog), the term and the vote are
+ * durable; a new leader brings every follower up to date with a full snapshot
+ * of its state before streaming entries, which also covers replicas that
+ * restarted with an empty log. A replica takes entries only once it holds
+ * a leader's state, so after the whole cluster restarts every follower
+ * replaces what its own state log held with the new leader's state.
+ * Elections use the pre-vote extension.
+ */
+@Component
+public class RaftNode {
+
+    public enum Role {
+        FOLLOWER, CANDIDATE, LEADER
+    }
+
+    private final boolean enabled;
+    private final String selfUrl;
+    private final List<String> peerUrls = new ArrayList<>();
+    private final long electionTimeoutMinMillis;
+    private final long electionTimeoutMaxMillis;
+    private final long heartbeatIntervalMillis;
+    private final long commitTimeoutMillis;
+    private final int maxLogEntries;
+    private final Path metaFile;
+    private final RestTemplate restTemplate;
+    private final BlockingTaskExecutors blockingTaskExecutors;
+
+    private static final CompletableFuture<Void> COMPLETED = CompletableFuture.completedFuture(null);
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private Role role = Role.FOLLOWER;
+    private long currentTerm;
+    private String votedFor;
+    private volatile String leaderUrl;
+    // entry at index i lives at log.get(i - snapshotIndex - 1)
+    private final List<Entry> log = new ArrayList<>();
+    private long snapshotIndex;
+    private long snapshotTerm;
+    private long commitIndex;
+    private long lastApplied;
+    // false until this replica's state comes from a coordinator leader rather than its own state log
+    private boolean stateFromLeader;
+    private final Map<String, Long> nextIndex = new HashMap<>();
+    private final Map<String, Long> matchIndex = new HashMap<>();
+    private final Set<String> needsSnapshot = new HashSet<>();
+    private final Map<Long, CompletableFuture<Void>> commitWaiters = new HashMap<>();
+    private final Set<String> replicationInFlight = ConcurrentHashMap.newKeySet();
+    private long electionDeadlineNanos;
+    private long lastHeartbeatNanos;
+    private long lastLeaderContactNanos;
+
+    private ReplicatedStateMachine stateMachine;
+    private ScheduledExecutorService ticker;
+    private ExecutorService rpcExecutor;
+
+    public RaftNode(@Qualifier("clusterRestTemplate") RestTemplate restTemplate,
+            @Value("${coordinator.cluster.enabled:false}") boolean enabled,
+            @Value("${coordinator.cluster.self-url:http://localhost:8080}") String selfUrl,
+            @Value("${coordinator.cluster.peer-urls:}") List<String> peerUrls,
+            @Value("${coordinator.cluster.election-timeout-min-ms:300}") long electionTimeoutMinMillis,
+            @Value("${coordinator.cluster.election-timeout-max-ms:600}") long electionTimeoutMaxMillis,
+            @Value("${coordinator.cluster.heartbeat-interval-ms:100}") long heartbeatIntervalMillis,
+            @Value("${coordinator.cluster.commit-timeout-ms:2000}") long commitTimeoutMillis,
+            @Value("${coordinator.cluster.max-log-entries:1000}") int maxLogEntries,
+            @Value("${coordinator.state.dir:coordinator-state}") String stateDirectory,
+            BlockingTaskExecutors blockingTaskExecutors) {
+        this.restTemplate = restTemplate;
+        this.blockingTaskExecutors = blockingTaskExecutors;
+        this.enabled = enabled;
+        this.selfUrl = selfUrl;
+        for (String peerUrl : peerUrls) {
+            if (!peerUrl.isBlank() && !peerUrl.equals(selfUrl)) {
+                this.peerUrls.add(peerUrl.trim());
+            }
+        }
+        this.electionTimeoutMinMillis = electionTimeoutMinMillis;
+        this.electionTimeoutMaxMillis = electionTimeoutMaxMillis;
+        this.heartbeatIntervalMillis = heartbeatIntervalMillis;
+        this.commitTimeoutMillis = commitTimeoutMillis;
+        this.maxLogEntries = maxLogEntries;
+        this.metaFile = Paths.get(stateDirectory, "raft-meta.json");
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // true on the coordinator leader, and always true when clustering is off
+    public boolean isLeader() {
+        if (!enabled) {
+            return true;
+        }
+        lock.lock();
+        try {
+            return role == Role.LEADER;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // base URL of the current coordinator leader, or null if unknown
+    public String getLeaderUrl() {
+        return isLeader() ? selfUrl : leaderUrl;
+    }
+
+    /*
+     * Starts taking part in elections and replication once the owner of the
+     * state machine has restored its local state. Does nothing when clustering
+     * is off.
+     */
+    public void start(ReplicatedStateMachine stateMachine) {
+        this.stateMachine = stateMachine;
+        if (!enabled) {
+            return;
+        }
+        loadMeta();
+        resetElectionDeadline();
+        ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "raft-ticker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        rpcExecutor = blockingTaskExecutors.newExecutor("raft-rpc-");
+        long tickMillis = Math.max(10, Math.min(heartbeatIntervalMillis, electionTimeoutMinMillis) / 2);
+        ticker.scheduleWithFixedDelay(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+        System.out.println("Coordinator replica " + selfUrl + " started in clustered mode with peers " + peerUrls);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (ticker != null) {
+            ticker.shutdownNow();
+            rpcExecutor.shutdownNow();
+        }
+    }
+
+    /*
+     * Appends the event to the replicated log and returns once a majority of
+     * replicas hold it and this replica has applied it through the state
+     * machine. Only the coordinator leader may call this.
+     */
+    public void replicate(CoordinatorEvent event) {
+        replicateAll(List.of(event));
+    }
+
+    // appends the events together and returns once all of them are committed
+    public void replicateAll(List<CoordinatorEvent> events) {
+        if (!enabled || events.isEmpty()) {
+            return;
+        }
+        CompletableFuture<Void> committed = new CompletableFuture<>();
+        lock.lock();
+        try {
+            if (role != Role.LEADER) {
+                throw new IllegalStateException("This coordinator replica is not the leader; leader is " + leaderUrl);
+            }
+            long index = 0;
+            for (CoordinatorEvent event : events) {
+                index = appendLocal(event);
+            }
+            // entries commit in order, so waiting for the last one covers them all
+            commitWaiters.put(index, committed);
+            advanceCommitIndex();
+        } finally {
+            lock.unlock();
+        }
+        replicateToAll();
+        try {
+            committed.get(commitTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("Coordinator event was not committed by a majority of replicas in time");
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Coordinator event was not committed: " + e.getCause().getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for coordinator event to commit");
+        }
+    }
+
+    public JSONObject getStatus() {
+        lock.lock();
+        try {
+            return new JSONObject()
+                    .put("enabled", enabled)
+                    .put("self", selfUrl)
+                    .put("role", role.name())
+                    .put("term", currentTerm)
+                    .put("leader", leaderUrl == null ? JSONObject.NULL : leaderUrl)
+                    .put("commitIndex", commitIndex)
+                    .put("lastApplied", lastApplied)
+                    .put("lastLogIndex", lastLogIndex())
+                    .put("snapshotIndex", snapshotIndex)
+                    .put("peers", new JSONArray(peerUrls));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // ---- timers ----
+
+    private void tick() {
+        try {
+            boolean sendHeartbeats = false;
+            boolean startElection = false;
+            lock.lock();
+            try {
+                long now = System.nanoTime();
+                if (role == Role.LEADER) {
+                    if (now - lastHeartbeatNanos >= TimeUnit.MILLISECONDS.toNanos(heartbeatIntervalMillis)) {
+                        lastHeartbeatNanos = now;
+                        sendHeartbeats = true;
+                    }
+                } else if (now - electionDeadlineNanos >= 0) {
+                    startElection = true;
+                }
+            } finally {
+                lock.unlock();
+            }
+            if (sendHeartbeats) {
+                replicateToAll();
+            } else if (startElection) {
+                startElection();
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Error occurred in coordinator replication timer: " + e.getMessage());
+        }
+    }
+
+    private void resetElectionDeadline() {
+        long timeoutMillis = ThreadLocalRandom.current().nextLong(electionTimeoutMinMillis,
+                electionTimeoutMaxMillis + 1);
+        electionDeadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+    }
+
+    // ---- elections ----
+
+    /*
+     * Pre-vote round first: a replica asks whether it could win before bumping
+     * its term, so a replica that was cut off or has just restarted cannot
+     * depose a healthy leader with a higher term.
+     */
+    private void startElection() {
+        JSONObject request;
+        long preVoteTerm;
+        lock.lock();
+        try {
+            resetElectionDeadline();
+            preVoteTerm = currentTerm;
+            request = voteRequest(currentTerm + 1).put("preVote", true);
+            if (peerUrls.isEmpty()) {
+                becomeCandidate();
+                return;
+            }
+        } finally {
+            lock.unlock();
+        }
+        requestVotes(request, () -> role != Role.LEADER && currentTerm == preVoteTerm, this::becomeCandidate);
+    }
+
+    // lock held
+    private void becomeCandidate() {
+        role = Role.CANDIDATE;
+        currentTerm++;
+        votedFor = selfUrl;
+        leaderUrl = null;
+        persistMeta();
+        resetElectionDeadline();
+        if (peerUrls.isEmpty()) {
+            becomeLeader();
+            return;
+        }
+        long electionTerm = currentTerm;
+        JSONObject request = voteRequest(currentTerm);
+        rpcExecutor.execute(() -> requestVotes(request,
+                () -> role == Role.CANDIDATE && currentTerm == electionTerm, this::becomeLeader));
+    }
+
+    // lock held
+    private JSONObject voteRequest(long term) {
+        return new JSONObject()
+                .put("term", term)
+                .put("candidate", selfUrl)
+                .put("lastLogIndex", lastLogIndex())
+                .put("lastLogTerm", lastLogTerm());
+    }
+
+    // runs onMajority under the lock once a majority granted while stillValid holds
+    private void requestVotes(JSONObject request, BooleanSupplier stillValid, Runnable onMajority) {
+        AtomicInteger votes = new AtomicInteger(1);
+        for (String peerUrl : peerUrls) {
+            CompletableFuture.supplyAsync(() -> post(peerUrl, "/cluster/request-vote", request), rpcExecutor)
+                    .thenAccept(response -> {
+                        if (response == null) {
+                            return;
+                        }
+                        lock.lock();
+                        try {
+                            if (response.getLong("term") > currentTerm) {
+                                stepDown(response.getLong("term"));
+                            } else if (stillValid.getAsBoolean() && response.getBoolean("voteGranted")
+                                    && votes.incrementAndGet() == majority()) {
+                                onMajority.run();
+                            }
+                        } finally {
+                            lock.unlock();
+                        }
+                    });
+        }
+    }
+
+    // lock held
+    private void becomeLeader() {
+        role = Role.LEADER;
+        stateFromLeader = true;
+        leaderUrl = selfUrl;
+        System.out.println("Coordinator replica " + selfUrl + " is now the coordinator leader for term " + currentTerm);
+        for (String peerUrl : peerUrls) {
+            nextIndex.put(peerUrl, lastLogIndex() + 1);
+            matchIndex.put(peerUrl, 0L);
+            needsSnapshot.add(peerUrl);
+        }
+        // a no-op entry of the new term commits the entries left over from earlier
+        // terms; they are applied, here and on the followers, once it commits
+        appendLocal(null);
+        advanceCommitIndex();
+        lastHeartbeatNanos = 0;
+    }
+
+    // lock held
+    private void stepDown(long term) {
+        if (term > currentTerm) {
+            currentTerm = term;
+            votedFor = null;
+            persistMeta();
+        }
+        if (role == Role.LEADER) {
+            System.out.println("Coordinator replica " + selfUrl + " is no longer the coordinator leader");
+        }
+        role = Role.FOLLOWER;
+        resetElectionDeadline();
+        failCommitWaiters("leadership was lost");
+    }
+
+    public JSONObject handleRequestVote(JSONObject request) {
+        lock.lock();
+        try {
+            long term = request.getLong("term");
+            // a replica that still hears from a live leader ignores candidates, so one that
+            // was cut off or is still starting up cannot force needless elections
+            long sinceLeaderContact = System.nanoTime() - lastLeaderContactNanos;
+            boolean leaderAlive = role == Role.LEADER || (leaderUrl != null
+                    && sinceLeaderContact < TimeUnit.MILLISECONDS.toNanos(electionTimeoutMinMillis));
+            if (leaderAlive) {
+                return new JSONObject().put("term", currentTerm).put("voteGranted", false);
+            }
+            String candidate = request.getString("candidate");
+            boolean logUpToDate = request.getLong("lastLogTerm") > lastLogTerm()
+                    || (request.getLong("lastLogTerm") == lastLogTerm()
+                            && request.getLong("lastLogIndex") >= lastLogIndex());
+            if (request.optBoolean("preVote")) {
+                // answers "would you vote for me" without changing anything here
+                return new JSONObject().put("term", currentTerm)
+                        .put("voteGranted", term > currentTerm && logUpToDate);
+            }
+            if (term > currentTerm) {
+                stepDown(term);
+            }
+            boolean granted = term == currentTerm && (votedFor == null || votedFor.equals(candidate)) && logUpToDate;
+            if (granted) {
+                votedFor = candidate;
+                persistMeta();
+                resetElectionDeadline();
+            }
+            return new JSONObject().put("term", currentTerm).put("voteGranted", granted);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // ---- replication, leader side ----
+
+    private void replicateToAll() {
+        for (String peerUrl : peerUrls) {
+            // at most one outstanding request per follower
+            if (replicationInFlight.add(peerUrl)) {
+                CompletableFuture.runAsync(() -> replicateTo(peerUrl), rpcExecutor)
+                        .whenComplete((ignored, error) -> replicationInFlight.remove(peerUrl));
+            }
+        }
+    }
+
+    private void replicateTo(String peerUrl) {
+        JSONObject request;
+        boolean snapshot;
+        long sentTerm;
+        long lastSentIndex;
+        lock.lock();
+        try {
+            if (role != Role.LEADER) {
+                return;
+            }
+            sentTerm = currentTerm;
+            long next = nextIndex.get(peerUrl);
+            snapshot = needsSnapshot.contains(peerUrl) || next <= snapshotIndex;
+            if (snapshot) {
+                // the in-memory state reflects lastApplied, which only ever covers committed entries
+                long included = Math.min(lastApplied, commitIndex);
+                request = new JSONObject()
+                        .put("term", currentTerm)
+                        .put("leader", selfUrl)
+                        .put("lastIncludedIndex", included)
+                        .put("lastIncludedTerm", termAt(included))
+                        .put("state", stateMachine.snapshot().toJson());
+                lastSentIndex = included;
+            } else {
+                JSONArray entries = new JSONArray();
+                for (long i = next; i <= lastLogIndex(); i++) {
+                    entries.put(entryAt(i).toJson());
+                }
+                request = new JSONObject()
+                        .put("term", currentTerm)
+                        .put("leader", selfUrl)
+                        .put("prevLogIndex", next - 1)
+                        .put("prevLogTerm", termAt(next - 1))
+                        .put("entries", entries)
+                        .put("leaderCommit", commitIndex);
+                lastSentIndex = lastLogIndex();
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        JSONObject response = post(peerUrl, snapshot ? "/cluster/install-snapshot" : "/cluster/append-entries",
+                request);
+        if (response == null) {
+            return;
+        }
+        lock.lock();
+        try {
+            if (response.getLong("term") > currentTerm) {
+                stepDown(response.getLong("term"));
+                return;
+            }
+            if (role != Role.LEADER || currentTerm != sentTerm) {
+                return;
+            }
+            if (snapshot || response.getBoolean("success")) {
+                needsSnapshot.remove(peerUrl);
+                matchIndex.put(peerUrl, Math.max(matchIndex.get(peerUrl), lastSentIndex));
+                nextIndex.put(peerUrl, matchIndex.get(peerUrl) + 1);
+                advanceCommitIndex();
+            } else if (response.optBoolean("needsSnapshot")) {
+                needsSnapshot.add(peerUrl);
+            } else {
+                long hint = response.optLong("lastLogIndex", nextIndex.get(peerUrl) - 2);
+                nextIndex.put(peerUrl, Math.max(1, Math.min(nextIndex.get(peerUrl) - 1, hint + 1)));
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // lock held; commits the highest index of this term held by a majority
+    private void advanceCommitIndex() {
+        for (long n = lastLogIndex(); n > commitIndex; n--) {
+            if (termAt(n) != currentTerm) {
+                break;
+            }
+            int replicas = 1;
+            for (long match : matchIndex.values()) {
+                if (match >= n) {
+                    replicas++;
+                }
+            }
+            if (replicas >= majority()) {
+                commitIndex = n;
+                applyCommitted();
+                break;
+            }
+        }
+    }
+
+    // ---- replication, follower side ----
+
+    /*
+     * Committed entries are applied under the lock, but their write to the
+     * state log is waited for only after it is released, so a slow disk does
+     * not hold up heartbeats and elections.
+     */
+    public JSONObject handleAppendEntries(JSONObject request) {
+        CompletableFuture<Void> durable = COMPLETED;
+        JSONObject response;
+        lock.lock();
+        try {
+            long term = request.getLong("term");
+            if (term < currentTerm) {
+                return new JSONObject().put("term", currentTerm).put("success", false);
+            }
+            acceptLeader(term, request.getString("leader"));
+            if (!stateFromLeader) {
+                // entries on top of this replica's own state could miss or repeat changes
+                return new JSONObject().put("term", currentTerm).put("success", false).put("needsSnapshot", true);
+            }
+
+            long prevLogIndex = request.getLong("prevLogIndex");
+            if (prevLogIndex > lastLogIndex()
+                    || (prevLogIndex > snapshotIndex && termAt(prevLogIndex) != request.getLong("prevLogTerm"))) {
+                return new JSONObject().put("term", currentTerm).put("success", false)
+                        .put("lastLogIndex", Math.min(lastLogIndex(), prevLogIndex - 1));
+            }
+            JSONArray entries = request.getJSONArray("entries");
+            for (int i = 0; i < entries.length(); i++) {
+                long index = prevLogIndex + 1 + i;
+                if (index <= snapshotIndex) {
+                    continue;
+                }
+                Entry entry = Entry.fromJson(entries.getJSONObject(i));
+                if (index <= lastLogIndex()) {
+                    if (termAt(index) == entry.term) {
+                        continue;
+                    }
+                    // conflicting suffix from an old leader
+                    truncateFrom(index);
+                }
+                log.add(entry);
+            }
+            long leaderCommit = request.getLong("leaderCommit");
+            if (leaderCommit > commitIndex) {
+                commitIndex = Math.min(leaderCommit, lastLogIndex());
+                durable = applyCommitted();
+            }
+            response = new JSONObject().put("term", currentTerm).put("success", true);
+        } finally {
+            lock.unlock();
+        }
+        CoordinatorStateLog.awaitDurable(durable);
+        return response;
+    }
+
+    public JSONObject handleInstallSnapshot(JSONObject request) {
+        CompletableFuture<Void> durable = COMPLETED;
+        JSONObject response;
+        lock.lock();
+        try {
+            long term = request.getLong("term");
+            if (term < currentTerm) {
+                return new JSONObject().put("term", currentTerm);
+            }
+            acceptLeader(term, request.getString("leader"));
+            long lastIncludedIndex = request.getLong("lastIncludedIndex");
+            // a snapshot this replica has already committed past would roll its state back;
+            // the entries after it reach this replica through append-entries instead. Indexes
+            // start over at 0 on every replica after a restart, so until a leader's state has
+            // been installed the first snapshot is always taken, or a replica that restarted
+            // along with the leader would keep whatever its own state log held
+            if (!stateFromLeader || lastIncludedIndex > commitIndex) {
+                stateFromLeader = true;
+                durable = stateMachine.restore(CoordinatorState.fromJson(request.getJSONObject("state")));
+                log.clear();
+                snapshotIndex = lastIncludedIndex;
+                snapshotTerm = request.getLong("lastIncludedTerm");
+                commitIndex = snapshotIndex;
+                lastApplied = snapshotIndex;
+            }
+            response = new JSONObject().put("term", currentTerm);
+        } finally {
+            lock.unlock();
+        }
+        CoordinatorStateLog.awaitDurable(durable);
+        return response;
+    }
+
+    // lock held
+    private void acceptLeader(long term, String leader) {
+        if (term > currentTerm || role != Role.FOLLOWER) {
+            stepDown(term);
+        }
+        leaderUrl = leader;
+        lastLeaderContactNanos = System.nanoTime();
+        resetElectionDeadline();
+    }
+
+    // ---- log ----
+
+    // lock held; returns the new entry's index
+    private long appendLocal(CoordinatorEvent event) {
+        log.add(new Entry(currentTerm, event));
+        return lastLogIndex();
+    }
+
+    // lock held; the future completes once the committed entries are durable and applied
+    private CompletableFuture<Void> applyCommitted() {
+        CompletableFuture<Void> durable = applyThrough(commitIndex);
+        Iterator<Map.Entry<Long, CompletableFuture<Void>>> waiters = commitWaiters.entrySet().iterator();
+        while (waiters.hasNext()) {
+            Map.Entry<Long, CompletableFuture<Void>> waiter = waiters.next();
+            if (waiter.getKey() <= commitIndex) {
+                CompletableFuture<Void> committed = waiter.getValue();
+                durable.whenComplete((ignored, error) -> {
+                    if (error != null) {
+                        committed.completeExceptionally(error);
+                    } else {
+                        committed.complete(null);
+                    }
+                });
+                waiters.remove();
+            }
+        }
+        compactLog();
+        return durable;
+    }
+
+    // lock held; hands the entries through index to the state machine as one batch
+    private CompletableFuture<Void> applyThrough(long index) {
+        List<CoordinatorEvent> events = new ArrayList<>();
+        while (lastApplied < index) {
+            Entry entry = entryAt(lastApplied + 1);
+            if (entry.event != null) {
+                events.add(entry.event);
+            }
+            lastApplied++;
+        }
+        return events.isEmpty() ? COMPLETED : stateMachine.apply(events);
+    }
+
+    // lock held; drops applied entries once the log grows past maxLogEntries
+    private void compactLog() {
+        if (log.size() <= maxLogEntries) {
+            return;
+        }
+        long upTo = Math.min(lastApplied, commitIndex);
+        if (upTo <= snapshotIndex) {
+            return;
+        }
+        long term = termAt(upTo);
+        log.subList(0, (int) (upTo - snapshotIndex)).clear();
+        snapshotIndex = upTo;
+        snapshotTerm = term;
+    }
+
+    // lock held; only ever drops uncommitted, and so unapplied, entries
+    private void truncateFrom(long index) {
+        log.subList((int) (index - snapshotIndex - 1), log.size()).clear();
+    }
+
+    private long lastLogIndex() {
+        return snapshotIndex + log.size();
+    }
+
+    private long lastLogTerm() {
+        return termAt(lastLogIndex());
+    }
+
+    private long termAt(long index) {
+        if (index == snapshotIndex) {
+            return snapshotTerm;
+        }
+        if (index < snapshotIndex || index > lastLogIndex()) {
+            return -1;
+        }
+        return entryAt(index).term;
+    }
+
+    private Entry entryAt(long index) {
+        return log.get((int) (index - snapshotIndex - 1));
+    }
+
+    private int majority() {
+        return (peerUrls.size() + 1) / 2 + 1;
+    }
+
+    // lock held
+    private void failCommitWaiters(String reason) {
+        for (CompletableFuture<Void> waiter : commitWaiters.values()) {
+            waiter.completeExceptionally(new IllegalStateException(reason));
+        }
+        commitWaiters.clear();
+    }
+
+    // ---- transport and durable term/vote ----
+
+    private JSONObject post(String peerUrl, String path, JSONObject body) {
+        try {
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.APPLICATION_JSON);
+            String response = restTemplate.postForObject(peerUrl + path,
+                    new HttpEntity<>(body.toString(), headers), String.class);
+            return response == null ? null : new JSONObject(response);
+        } catch (RuntimeException e) {
+            return null; // unreachable replicas are retried on the next heartbeat
+        }
+    }
+
+    private void loadMeta() {
+        try {
+            if (Files.exists(metaFile)) {
+                JSONObject meta = new JSONObject(Files.readString(metaFile, StandardCharsets.UTF_8));
+                currentTerm = meta.getLong("term");
+                votedFor = meta.isNull("votedFor") ? null : meta.getString("votedFor");
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read " + metaFile, e);
+        }
+    }
+
+    // lock held; a replica must never vote twice in the same term, even across restarts
+    private void persistMeta() {
+        try {
+            Files.createDirectories(metaFile.getParent());
+            Path temporary = metaFile.resolveSibling(metaFile.getFileName() + ".tmp");
+            JSONObject meta = new JSONObject().put("term", currentTerm)
+                    .put("votedFor", votedFor == null ? JSONObject.NULL : votedFor);
+            Files.writeString(temporary, meta.toString(), StandardCharsets.UTF_8);
+            Files.move(temporary, metaFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write " + metaFile, e);
+        }
+    }
+
+    private static final class Entry {
+        final long term;
+        // null for the no-op entry a new leader appends
+        final CoordinatorEvent event;
+
+        Entry(long term, CoordinatorEvent event) {
+            this.term = term;
+            this.event = event;
+        }
+
+        JSONObject toJson() {
+            return new JSONObject().put("term", term).put("event", event == null ? JSONObject.NULL : event.toJson());
+        }
+
+        static Entry fromJson(JSONObject json) {
+            CoordinatorEvent event = json.isNull("event") ? null : CoordinatorEvent.fromJson(json.getJSONObject("event"));
+            return new Entry(json.getLong("term"), event);
+        }
+    }
+}
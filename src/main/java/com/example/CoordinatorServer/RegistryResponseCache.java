@@ -0,0 +1,135 @@
+package com.example.CoordinatorServer;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/*
+ * Pre-serialized bodies for the endpoints brokers and clients poll all the
+ * time: /broker-registry, /get-peerBrokers-IPList and /topology (as JSON and
+ * in its binary form), per broker cluster. A body is rebuilt only when the
+ * cluster's registry snapshot version (and, for the peer list and topology,
+ * its leadership) has moved; otherwise every request is served the same
+ * byte[].
+ *
+ * The ETag is a checksum of the body rather than the local version, so every
+ * coordinator replica hands out the same tag for the same content. Topologies
+ * carry the local version in their body, so their tags are per replica.
+ */
+@Component
+public class RegistryResponseCache {
+
+    private final BrokerRegistry brokerRegistry;
+    private final CoordinatorServerService coordinatorServerService;
+    private final ObjectMapper objectMapper;
+    private final Topology.ReadPolicy readPolicy;
+
+    private final Map<String, CachedBody> registryBodies = new ConcurrentHashMap<>();
+    private final Map<String, CachedBody> peerListBodies = new ConcurrentHashMap<>();
+    private final Map<String, CachedBody> topologyBodies = new ConcurrentHashMap<>();
+    private final Map<String, CachedBody> binaryTopologyBodies = new ConcurrentHashMap<>();
+
+    public RegistryResponseCache(BrokerRegistry brokerRegistry, CoordinatorServerService coordinatorServerService,
+            ObjectMapper objectMapper, @Value("${coordinator.topology.read-policy:peers}") String readPolicy) {
+        this.brokerRegistry = brokerRegistry;
+        this.coordinatorServerService = coordinatorServerService;
+        this.objectMapper = objectMapper;
+        this.readPolicy = Topology.ReadPolicy.of(readPolicy);
+    }
+
+    public CachedBody getRegistry(String clusterId) {
+        BrokerRegistry.Snapshot snapshot = brokerRegistry.snapshot(clusterId);
+        CachedBody cached = registryBodies.getOrDefault(clusterId, CachedBody.NONE);
+        if (cached.registryVersion != snapshot.getVersion()) {
+            // concurrent rebuilds of the same version produce the same bytes, so last write wins
+            cached = new CachedBody(snapshot.getVersion(), null, serialize(snapshot.getBrokers()));
+            cache(registryBodies, clusterId, snapshot, cached);
+        }
+        return cached;
+    }
+
+    public CachedBody getPeerList(String clusterId) {
+        BrokerRegistry.Snapshot snapshot = brokerRegistry.snapshot(clusterId);
+        String leaderIp = coordinatorServerService.getleadEC2BrokerPrivateIP(clusterId);
+        CachedBody cached = peerListBodies.getOrDefault(clusterId, CachedBody.NONE);
+        if (cached.registryVersion != snapshot.getVersion() || !Objects.equals(cached.leadership, leaderIp)) {
+            cached = new CachedBody(snapshot.getVersion(), leaderIp,
+                    serialize(snapshot.peerIpAddresses(leaderIp)));
+            cache(peerListBodies, clusterId, snapshot, cached);
+        }
+        return cached;
+    }
+
+    public CachedBody getTopology(String clusterId) {
+        return topology(clusterId, topologyBodies, false);
+    }
+
+    public CachedBody getBinaryTopology(String clusterId) {
+        return topology(clusterId, binaryTopologyBodies, true);
+    }
+
+    private CachedBody topology(String clusterId, Map<String, CachedBody> bodies, boolean binary) {
+        BrokerRegistry.Snapshot snapshot = brokerRegistry.snapshot(clusterId);
+        LeadershipView leadership = coordinatorServerService.getLeadership(clusterId);
+        CachedBody cached = bodies.getOrDefault(clusterId, CachedBody.NONE);
+        if (cached.registryVersion != snapshot.getVersion()
+                || !Objects.equals(cached.leadership, leadership.getEtag())) {
+            Topology topology = Topology.of(snapshot, leadership, readPolicy);
+            cached = new CachedBody(snapshot.getVersion(), leadership.getEtag(),
+                    binary ? topology.toBinary() : serialize(topology));
+            cache(bodies, clusterId, snapshot, cached);
+        }
+        return cached;
+    }
+
+    // clusters that never had a broker are not cached, so unknown cluster IDs cost nothing
+    private static void cache(Map<String, CachedBody> bodies, String clusterId, BrokerRegistry.Snapshot snapshot,
+            CachedBody body) {
+        if (snapshot.getVersion() > 0) {
+            bodies.put(clusterId, body);
+        }
+    }
+
+    private byte[] serialize(Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize registry response", e);
+        }
+    }
+
+    public static final class CachedBody {
+        static final CachedBody NONE = new CachedBody(-1, null, new byte[0]);
+
+        private final long registryVersion;
+        // whatever else the body depends on besides the registry, e.g. the leader's IP
+        private final String leadership;
+        private final byte[] body;
+        private final String etag;
+
+        CachedBody(long registryVersion, String leadership, byte[] body) {
+            this.registryVersion = registryVersion;
+            this.leadership = leadership;
+            this.body = body;
+            CRC32 crc = new CRC32();
+            crc.update(body);
+            this.etag = "\"" + Long.toHexString(crc.getValue()) + "-" + body.length + "\"";
+        }
+
+        // shared by every request; must not be modified
+        public byte[] getBody() {
+            return body;
+        }
+
+        public String getEtag() {
+            return etag;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.CoordinatorServer;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/*
+ * The coordinator state that RaftNode replicates. Committed events are applied
+ * through apply(); snapshot() and restore() move the whole state to a replica
+ * that is too far behind to catch up from the log. apply() and restore()
+ * queue the change and return right away; it is applied in the order queued
+ * once durable, and the returned future completes then, so callers need not
+ * hold their own locks while it is written. snapshot() includes every change
+ * queued so far.
+ */
+public interface ReplicatedStateMachine {
+
+    CompletableFuture<Void> apply(List<CoordinatorEvent> events);
+
+    CoordinatorState snapshot();
+
+    CompletableFuture<Void> restore(CoordinatorState state);
+}
@@ -0,0 +1,185 @@
+package com.example.CoordinatorServer;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ * In-process CloudProvider for running the coordinator without a cloud
+ * account and for load and failover-timing tests
+ * (coordinator.cloud.provider=simulator).
+ *
+ * Addresses and instances live in memory. The instances that exist are the
+ * ones added with addInstance (coordinator.simulator.instances) and not yet
+ * terminated; like EC2, describePrivateIpAddresses leaves every other instance
+ * ID out. Unknown allocation IDs are adopted on association, because each
+ * coordinator replica has its own simulator.
+ *
+ * Every call is delayed by latencyMillis plus a uniform jitter of up to
+ * latencyJitterMillis. It is rejected as throttled once the call rate exceeds
+ * rateLimitPerSecond, and it fails with probability failureRate if its name
+ * (a CloudProvider method name) is in failureOperations, where an empty set
+ * means every operation. Latency and failures come from one seeded Random, so
+ * a run with the same seed and the same call order injects the same faults.
+ * Throttling depends on the call rate, so it is only as repeatable as the load
+ * that drives it.
+ */
+public class SimulatedCloudProvider implements CloudProvider {
+    private final long latencyMillis;
+    private final long latencyJitterMillis;
+    private final double rateLimitPerSecond;
+    private final double failureRate;
+    private final Set<String> failureOperations;
+
+    // guards random and the token bucket
+    private final Object faultLock = new Object();
+    private final Random random;
+    private double tokens;
+    private long lastRefillNanos;
+
+    private final Map<String, SimulatedAddress> addressesByAllocationId = new ConcurrentHashMap<>();
+    private final Map<String, String> privateIpByInstanceId = new ConcurrentHashMap<>();
+    private final AtomicInteger counter = new AtomicInteger();
+
+    public SimulatedCloudProvider(long seed, long latencyMillis, long latencyJitterMillis, double rateLimitPerSecond,
+            double failureRate, Set<String> failureOperations) {
+        this.random = new Random(seed);
+        this.latencyMillis = latencyMillis;
+        this.latencyJitterMillis = latencyJitterMillis;
+        this.rateLimitPerSecond = rateLimitPerSecond;
+        this.failureRate = failureRate;
+        this.failureOperations = Set.copyOf(failureOperations);
+        // one second worth of calls may arrive in a burst
+        this.tokens = rateLimitPerSecond;
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    public void addInstance(String instanceId, String privateIpAddress) {
+        privateIpByInstanceId.put(instanceId, privateIpAddress);
+    }
+
+    @Override
+    public AllocatedAddress allocateAddress() {
+        simulate("allocateAddress");
+        int n = counter.incrementAndGet();
+        SimulatedAddress address = new SimulatedAddress("eipalloc-" + n, "203.0.113." + (n % 254 + 1));
+        addressesByAllocationId.put(address.allocationId, address);
+        return new AllocatedAddress(address.allocationId, address.publicIp);
+    }
+
+    @Override
+    public String associateAddress(String allocationId, String instanceId) {
+        simulate("associateAddress");
+        SimulatedAddress address = addressesByAllocationId.computeIfAbsent(allocationId,
+                id -> new SimulatedAddress(id, null));
+        String associationId = "eipassoc-" + counter.incrementAndGet();
+        synchronized (address) {
+            address.instanceId = instanceId;
+            address.associationId = associationId;
+        }
+        return associationId;
+    }
+
+    @Override
+    public void disassociateAddress(String associationId) {
+        simulate("disassociateAddress");
+        for (SimulatedAddress address : addressesByAllocationId.values()) {
+            synchronized (address) {
+                if (associationId.equals(address.associationId)) {
+                    address.instanceId = null;
+                    address.associationId = null;
+                }
+            }
+        }
+    }
+
+    @Override
+    public String findAssociationId(String allocationId, String instanceId) {
+        simulate("findAssociationId");
+        SimulatedAddress address = addressesByAllocationId.get(allocationId);
+        if (address == null) {
+            return null;
+        }
+        synchronized (address) {
+            return instanceId.equals(address.instanceId) ? address.associationId : null;
+        }
+    }
+
+    @Override
+    public Map<String, String> describePrivateIpAddresses(Collection<String> instanceIds) {
+        simulate("describePrivateIpAddresses");
+        Map<String, String> privateIps = new HashMap<>();
+        for (String instanceId : instanceIds) {
+            String privateIp = privateIpByInstanceId.get(instanceId);
+            if (privateIp != null) {
+                privateIps.put(instanceId, privateIp);
+            }
+        }
+        return privateIps;
+    }
+
+    @Override
+    public void terminateInstances(Collection<String> instanceIds) {
+        simulate("terminateInstances");
+        for (String instanceId : instanceIds) {
+            privateIpByInstanceId.remove(instanceId);
+        }
+    }
+
+    private void simulate(String operation) {
+        boolean throttled;
+        long delayMillis;
+        boolean failed;
+        synchronized (faultLock) {
+            throttled = rateLimitPerSecond > 0 && !tryAcquire();
+            delayMillis = latencyMillis + (latencyJitterMillis > 0 ? random.nextLong(latencyJitterMillis + 1) : 0);
+            // drawn for every call so that the sequence does not depend on failureOperations
+            double draw = random.nextDouble();
+            failed = draw < failureRate && (failureOperations.isEmpty() || failureOperations.contains(operation));
+        }
+        if (delayMillis > 0) {
+            try {
+                TimeUnit.MILLISECONDS.sleep(delayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CloudProviderException(operation + " was interrupted", false, e);
+            }
+        }
+        if (throttled) {
+            throw new CloudProviderException(operation + " throttled by the cloud simulator", true);
+        }
+        if (failed) {
+            throw new CloudProviderException(operation + " failed: injected by the cloud simulator", false);
+        }
+    }
+
+    // token bucket holding at most rateLimitPerSecond tokens
+    private boolean tryAcquire() {
+        long now = System.nanoTime();
+        tokens = Math.min(rateLimitPerSecond,
+                tokens + (now - lastRefillNanos) * rateLimitPerSecond / TimeUnit.SECONDS.toNanos(1));
+        lastRefillNanos = now;
+        if (tokens < 1) {
+            return false;
+        }
+        tokens--;
+        return true;
+    }
+
+    private static final class SimulatedAddress {
+        final String allocationId;
+        final String publicIp;
+        String instanceId;
+        String associationId;
+
+        SimulatedAddress(String allocationId, String publicIp) {
+            this.allocationId = allocationId;
+            this.publicIp = publicIp;
+        }
+    }
+}
@@ -0,0 +1,325 @@
+package com.example.CoordinatorServer;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/*
+ * Ranked list of the brokers that would take over if the lead broker of their
+ * cluster failed, one list per broker cluster.
+ *
+ * Each list is kept in LeaderRankingPolicy order as brokers register and
+ * deregister. A background task resolves the private IP of the top standbys and
+ * checks that they answer their status endpoint, so a failover can go straight
+ * to re-associating the elastic IP with an already verified broker instead of
+ * electing and looking it up after the failure.
+ */
+@Component
+public class SuccessionPlan {
+    private final BrokerRegistry brokerRegistry;
+    private final LeaderRankingPolicy leaderRankingPolicy;
+    private final InstanceMetadataCache instanceMetadataCache;
+    private final BrokerHealthProbe brokerHealthProbe;
+    private final BrokerLatencyTracker brokerLatencyTracker;
+    private final RaftNode raftNode;
+    private final BlockingTaskExecutors blockingTaskExecutors;
+
+    private final boolean enabled;
+    private final long checkIntervalMillis;
+    private final int standbyCount;
+    private final int extraProbesPerRound;
+
+    private final Map<String, ClusterPlan> plans = new ConcurrentHashMap<>();
+    private ScheduledExecutorService scheduler;
+    private ExecutorService probeExecutor;
+
+    public SuccessionPlan(BrokerRegistry brokerRegistry, LeaderRankingPolicy leaderRankingPolicy,
+            InstanceMetadataCache instanceMetadataCache, BrokerHealthProbe brokerHealthProbe,
+            BrokerLatencyTracker brokerLatencyTracker, RaftNode raftNode, BlockingTaskExecutors blockingTaskExecutors,
+            @Value("${coordinator.succession.enabled:true}") boolean enabled,
+            @Value("${coordinator.succession.check-interval-ms:1000}") long checkIntervalMillis,
+            @Value("${coordinator.succession.standby-count:2}") int standbyCount,
+            @Value("${coordinator.succession.extra-probes-per-round:8}") int extraProbesPerRound) {
+        this.brokerRegistry = brokerRegistry;
+        this.leaderRankingPolicy = leaderRankingPolicy;
+        this.instanceMetadataCache = instanceMetadataCache;
+        this.brokerHealthProbe = brokerHealthProbe;
+        this.brokerLatencyTracker = brokerLatencyTracker;
+        this.raftNode = raftNode;
+        this.blockingTaskExecutors = blockingTaskExecutors;
+        this.enabled = enabled;
+        this.checkIntervalMillis = checkIntervalMillis;
+        this.standbyCount = standbyCount;
+        this.extraProbesPerRound = extraProbesPerRound;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            System.out.println("Standby verification for the succession plan is disabled.");
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "succession-plan");
+            thread.setDaemon(true);
+            return thread;
+        });
+        probeExecutor = blockingTaskExecutors.newExecutor("standby-check-");
+        scheduler.scheduleWithFixedDelay(this::verifyStandbys, checkIntervalMillis, checkIntervalMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            probeExecutor.shutdownNow();
+        }
+    }
+
+    // called by the service whenever the cluster's elastic IP moves to a new leader
+    public void onLeaderChanged(String clusterId, String newLeaderInstanceId) {
+        plan(clusterId).leaderInstanceId = newLeaderInstanceId;
+    }
+
+    /*
+     * Returns the broker that should lead the cluster next: the best ranked
+     * standby that passed its last status check, or, if none has been verified
+     * yet, the best ranked broker without a verified private IP. Brokers that
+     * registered without an instance ID cannot hold the elastic IP and are
+     * passed over. Returns null if no other broker can lead the cluster.
+     */
+    public Standby nextLeader(String clusterId) {
+        ClusterPlan plan = plan(clusterId);
+        // ranked afresh: load and latency based policies change without membership changes
+        List<Broker> ranked = rank(plan, brokerRegistry.snapshot(clusterId), plan.leaderInstanceId).brokers;
+        long freshAfterMillis = System.currentTimeMillis() - 3 * checkIntervalMillis;
+        for (Broker broker : ranked) {
+            Standby standby = plan.verifiedByUniqueId.get(broker.getUniqueId());
+            if (standby != null && standby.isReachable() && standby.getVerifiedAtMillis() >= freshAfterMillis
+                    && canLead(clusterId, broker)) {
+                return standby;
+            }
+        }
+        for (Broker broker : ranked) {
+            if (canLead(clusterId, broker)) {
+                return new Standby(broker, null, false, 0, 0);
+            }
+        }
+        return null;
+    }
+
+    // still registered, and with an instance the elastic IP can be associated with
+    private boolean canLead(String clusterId, Broker broker) {
+        return broker.getEC2instanceID() != null
+                && brokerRegistry.containsInstance(clusterId, broker.getEC2instanceID());
+    }
+
+    // the cluster's standbys in succession order, with their last verification result
+    public List<Standby> getStandbys(String clusterId) {
+        ClusterPlan plan = plans.get(clusterId);
+        if (plan == null) {
+            return List.of();
+        }
+        List<Standby> standbys = new ArrayList<>();
+        for (Broker broker : currentRanking(clusterId, plan).brokers) {
+            Standby standby = plan.verifiedByUniqueId.get(broker.getUniqueId());
+            standbys.add(standby != null ? standby : new Standby(broker, null, false, 0, 0));
+        }
+        return standbys;
+    }
+
+    private ClusterPlan plan(String clusterId) {
+        ClusterPlan plan = plans.get(clusterId);
+        if (plan == null) {
+            plan = plans.computeIfAbsent(clusterId, key -> new ClusterPlan());
+        }
+        return plan;
+    }
+
+    private Ranking currentRanking(String clusterId, ClusterPlan plan) {
+        Ranking current = plan.ranking;
+        BrokerRegistry.Snapshot registry = brokerRegistry.snapshot(clusterId);
+        String leader = plan.leaderInstanceId;
+        if (current.registryVersion != registry.getVersion() || !Objects.equals(current.leaderInstanceId, leader)) {
+            current = rank(plan, registry, leader);
+        }
+        return current;
+    }
+
+    private Ranking rank(ClusterPlan plan, BrokerRegistry.Snapshot registry, String leader) {
+        List<Broker> candidates = new ArrayList<>(registry.size());
+        for (Broker broker : registry.getBrokers().values()) {
+            if (!Objects.equals(leader, broker.getEC2instanceID())) {
+                candidates.add(broker);
+            }
+        }
+        Ranking ranked = new Ranking(registry.getVersion(), leader, leaderRankingPolicy.rank(candidates));
+        plan.ranking = ranked;
+        return ranked;
+    }
+
+    private void verifyStandbys() {
+        try {
+            if (!raftNode.isLeader()) {
+                return;
+            }
+            // one round covers every cluster: one private IP lookup, all checks in parallel
+            Map<Broker, ClusterPlan> toCheck = new LinkedHashMap<>();
+            for (String clusterId : brokerRegistry.clusterIds()) {
+                ClusterPlan plan = plan(clusterId);
+                for (Broker broker : selectForCheck(plan, brokerRegistry.snapshot(clusterId))) {
+                    toCheck.put(broker, plan);
+                }
+            }
+
+            Map<String, String> privateIps = instanceMetadataCache.getPrivateIpAddresses(instanceIds(toCheck.keySet()));
+            List<CompletableFuture<Void>> checks = new ArrayList<>();
+            for (Map.Entry<Broker, ClusterPlan> entry : toCheck.entrySet()) {
+                Broker broker = entry.getKey();
+                // a broker without an instance ID is checked at the address it registered with
+                String privateIp = broker.getEC2instanceID() != null ? privateIps.get(broker.getEC2instanceID())
+                        : broker.getIpAddress();
+                checks.add(CompletableFuture.runAsync(() -> check(entry.getValue(), broker, privateIp), probeExecutor));
+            }
+            CompletableFuture.allOf(checks.toArray(new CompletableFuture[0])).join();
+        } catch (RuntimeException e) {
+            // never let one bad round cancel the scheduled task
+            System.err.println("Error occurred while verifying standby brokers: " + e.getMessage());
+        }
+    }
+
+    // only called from the scheduler thread
+    private List<Broker> selectForCheck(ClusterPlan plan, BrokerRegistry.Snapshot registry) {
+        // re-rank every round: latency or load based policies change without membership changes
+        List<Broker> ranked = rank(plan, registry, plan.leaderInstanceId).brokers;
+        plan.verifiedByUniqueId.keySet().retainAll(uniqueIds(ranked));
+
+        // the top standbys every round, plus a few of the others in turn so that every
+        // broker eventually gets a latency measurement
+        int top = Math.min(standbyCount, ranked.size());
+        List<Broker> toCheck = new ArrayList<>(ranked.subList(0, top));
+        int rest = ranked.size() - top;
+        int extra = Math.min(extraProbesPerRound, rest);
+        for (int i = 0; i < extra; i++) {
+            toCheck.add(ranked.get(top + (plan.roundRobinOffset + i) % rest));
+        }
+        plan.roundRobinOffset = rest == 0 ? 0 : (plan.roundRobinOffset + extra) % rest;
+        return toCheck;
+    }
+
+    private void check(ClusterPlan plan, Broker broker, String privateIp) {
+        long roundTripNanos = privateIp == null ? -1 : brokerHealthProbe.probe(privateIp);
+        if (roundTripNanos >= 0) {
+            brokerLatencyTracker.record(broker.getClusterId(), privateIp, roundTripNanos);
+        }
+        plan.verifiedByUniqueId.put(broker.getUniqueId(), new Standby(broker, privateIp,
+                roundTripNanos >= 0, System.currentTimeMillis(), brokerLatencyTracker.getLatencyMillis(broker.getClusterId(), privateIp)));
+    }
+
+    // brokers registered without an instance ID have nothing to look up
+    private static List<String> instanceIds(Collection<Broker> brokers) {
+        List<String> ids = new ArrayList<>(brokers.size());
+        for (Broker broker : brokers) {
+            if (broker.getEC2instanceID() != null) {
+                ids.add(broker.getEC2instanceID());
+            }
+        }
+        return ids;
+    }
+
+    private static Set<Integer> uniqueIds(Collection<Broker> brokers) {
+        Set<Integer> ids = new HashSet<>(brokers.size());
+        for (Broker broker : brokers) {
+            ids.add(broker.getUniqueId());
+        }
+        return ids;
+    }
+
+    // succession state of one broker cluster
+    private static final class ClusterPlan {
+        // keyed by uniqueId: brokers may register without an instance ID
+        final Map<Integer, Standby> verifiedByUniqueId = new ConcurrentHashMap<>();
+        volatile Ranking ranking = new Ranking(-1, null, List.of());
+        volatile String leaderInstanceId;
+        int roundRobinOffset;
+    }
+
+    private static final class Ranking {
+        final long registryVersion;
+        final String leaderInstanceId;
+        final List<Broker> brokers;
+
+        Ranking(long registryVersion, String leaderInstanceId, List<Broker> brokers) {
+            this.registryVersion = registryVersion;
+            this.leaderInstanceId = leaderInstanceId;
+            this.brokers = brokers;
+        }
+    }
+
+    /*
+     * A candidate leader together with the outcome of its last background check.
+     */
+    public static final class Standby {
+        private final Broker broker;
+        private final String privateIp;
+        private final boolean reachable;
+        private final long verifiedAtMillis;
+        private final double latencyMillis;
+
+        Standby(Broker broker, String privateIp, boolean reachable, long verifiedAtMillis, double latencyMillis) {
+            this.broker = broker;
+            this.privateIp = privateIp;
+            this.reachable = reachable;
+            this.verifiedAtMillis = verifiedAtMillis;
+            this.latencyMillis = latencyMillis;
+        }
+
+        public String getClusterId() {
+            return broker.getClusterId();
+        }
+
+        public int getUniqueId() {
+            return broker.getUniqueId();
+        }
+
+        public String getInstanceId() {
+            return broker.getEC2instanceID();
+        }
+
+        // null until the background check has resolved it
+        public String getPrivateIp() {
+            return privateIp;
+        }
+
+        public boolean isReachable() {
+            return reachable;
+        }
+
+        public long getVerifiedAtMillis() {
+            return verifiedAtMillis;
+        }
+
+        // -1 if the broker has not been measured
+        public double getLatencyMillis() {
+            return Double.isInfinite(latencyMillis) ? -1 : latencyMillis;
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.example.CoordinatorServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/*
+ * Everything a publisher or subscriber needs to route on its own: every
+ * broker of one cluster with its role, and a hint saying where writes and
+ * reads should go. Writes always go to the leader through the elastic IP;
+ * reads go wherever the read policy allows, so read-heavy clients can spread
+ * over the peers instead of all funnelling through the leader.
+ *
+ * A topology carries no version of its own: the registry's version is local
+ * to one coordinator replica and starts over when it restarts. Clients detect
+ * a change by the ETag, a checksum of the body, which is the same on every
+ * replica that holds the same state, and order leaderships by leaderEpoch,
+ * which is durable and replicated and only ever grows.
+ *
+ * The binary form (MEDIA_TYPE) is, in DataOutput encoding:
+ *
+ *   byte   format, currently 1
+ *   long   leaderEpoch
+ *   UTF    clusterId
+ *   UTF    writeAddress, "" if the cluster has no elastic IP yet
+ *   byte   readPolicy: 0 leader, 1 peers, 2 any
+ *   int    member count, then for each member:
+ *     int    uniqueId
+ *     UTF    ipAddress
+ *     short  port (unsigned)
+ *     byte   flags: 1 leader, 2 takes reads
+ */
+public class Topology {
+    public static final String MEDIA_TYPE = "application/x-broker-topology";
+
+    static final byte FORMAT = 1;
+    static final byte FLAG_LEADER = 1;
+    static final byte FLAG_READS = 2;
+
+    public enum ReadPolicy {
+        // reads go to the leader, as before topologies existed
+        LEADER,
+        // reads go to the peers, or to the leader if it has none
+        PEERS,
+        // reads go to any broker, leader included
+        ANY;
+
+        static ReadPolicy of(String name) {
+            return valueOf(name.trim().toUpperCase());
+        }
+    }
+
+    private final String clusterId;
+    private final long leaderEpoch;
+    private final String writeAddress;
+    private final ReadPolicy readPolicy;
+    private final List<Member> members;
+
+    Topology(String clusterId, long leaderEpoch, String writeAddress, ReadPolicy readPolicy, List<Member> members) {
+        this.clusterId = clusterId;
+        this.leaderEpoch = leaderEpoch;
+        this.writeAddress = writeAddress;
+        this.readPolicy = readPolicy;
+        this.members = Collections.unmodifiableList(members);
+    }
+
+    static Topology of(BrokerRegistry.Snapshot registry, LeadershipView leadership, ReadPolicy readPolicy) {
+        Broker leader = null;
+        for (Broker broker : registry.getBrokers().values()) {
+            if (isLeader(broker, leadership)) {
+                leader = broker;
+                break;
+            }
+        }
+        List<Member> members = new ArrayList<>(registry.size());
+        for (Broker broker : registry.getBrokers().values()) {
+            boolean isLeader = broker == leader;
+            boolean reads;
+            switch (readPolicy) {
+                case LEADER:
+                    reads = isLeader;
+                    break;
+                case PEERS:
+                    reads = !isLeader || registry.size() == 1;
+                    break;
+                default:
+                    reads = true;
+            }
+            members.add(new Member(broker.getUniqueId(), broker.getIpAddress(), broker.getPort(),
+                    isLeader ? "leader" : "peer", reads));
+        }
+        return new Topology(leadership.getClusterId(), leadership.getEpoch(),
+                leadership.getElasticIpAddress(), readPolicy, members);
+    }
+
+    private static boolean isLeader(Broker broker, LeadershipView leadership) {
+        if (leadership.getLeaderInstanceId() != null) {
+            return leadership.getLeaderInstanceId().equals(broker.getEC2instanceID());
+        }
+        return leadership.getLeaderPrivateIp() != null
+                && leadership.getLeaderPrivateIp().equals(broker.getIpAddress());
+    }
+
+    public byte[] toBinary() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + 24 * members.size());
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(FORMAT);
+            out.writeLong(leaderEpoch);
+            out.writeUTF(clusterId);
+            out.writeUTF(writeAddress == null ? "" : writeAddress);
+            out.writeByte(readPolicy.ordinal());
+            out.writeInt(members.size());
+            for (Member member : members) {
+                out.writeInt(member.uniqueId);
+                out.writeUTF(member.ipAddress == null ? "" : member.ipAddress);
+                out.writeShort(member.port);
+                out.writeByte((member.isLeader() ? FLAG_LEADER : 0) | (member.reads ? FLAG_READS : 0));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // cannot happen with a ByteArrayOutputStream
+        }
+        return bytes.toByteArray();
+    }
+
+    public String getClusterId() {
+        return clusterId;
+    }
+
+    public long getLeaderEpoch() {
+        return leaderEpoch;
+    }
+
+    // where clients send writes: the cluster's elastic IP, null until one is allocated
+    public String getWriteAddress() {
+        return writeAddress;
+    }
+
+    public ReadPolicy getReadPolicy() {
+        return readPolicy;
+    }
+
+    public List<Member> getMembers() {
+        return members;
+    }
+
+    public static final class Member {
+        private final int uniqueId;
+        private final String ipAddress;
+        private final int port;
+        private final String role;
+        private final boolean reads;
+
+        Member(int uniqueId, String ipAddress, int port, String role, boolean reads) {
+            this.uniqueId = uniqueId;
+            this.ipAddress = ipAddress;
+            this.port = port;
+            this.role = role;
+            this.reads = reads;
+        }
+
+        public int getUniqueId() {
+            return uniqueId;
+        }
+
+        public String getIpAddress() {
+            return ipAddress;
+        }
+
+        public int getPort() {
+            return port;
+        }
+
+        // "leader" or "peer"
+        public String getRole() {
+            return role;
+        }
+
+        // whether the routing hint sends reads to this broker
+        public boolean isReads() {
+            return reads;
+        }
+
+        boolean isLeader() {
+            return "leader".equals(role);
+        }
+    }
+}
@@ -4,11 +4,27 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
+import com.example.CoordinatorServer.BlockingTaskExecutors;
+import com.example.CoordinatorServer.LatencyRecorder;
+
 @Configuration
 public class AppConfig implements WebMvcConfigurer {
 
+    private final ClusterWriteForwardingInterceptor clusterWriteForwardingInterceptor;
+    private final LatencyRecorder latencyRecorder;
+    private final BlockingTaskExecutors blockingTaskExecutors;
+
+    public AppConfig(ClusterWriteForwardingInterceptor clusterWriteForwardingInterceptor,
+            LatencyRecorder latencyRecorder, BlockingTaskExecutors blockingTaskExecutors) {
+        this.clusterWriteForwardingInterceptor = clusterWriteForwardingInterceptor;
+        this.latencyRecorder = latencyRecorder;
+        this.blockingTaskExecutors = blockingTaskExecutors;
+    }
+
     @Override
     public void addInterceptors(InterceptorRegistry registry) {
-        registry.addInterceptor(new RequestProcessingTimeInterceptor());
+        boolean virtualThreads = blockingTaskExecutors.isVirtual();
+        registry.addInterceptor(new RequestProcessingTimeInterceptor(latencyRecorder, virtualThreads));
+        registry.addInterceptor(clusterWriteForwardingInterceptor).excludePathPatterns("/cluster/**");
     }
-}
\ No newline at end of file
+}
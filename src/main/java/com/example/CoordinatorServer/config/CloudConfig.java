@@ -0,0 +1,76 @@
+package com.example.CoordinatorServer.config;
+
+import java.util.HashSet;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.amazonaws.auth.AWSStaticCredentialsProvider;
+import com.amazonaws.auth.BasicAWSCredentials;
+import com.amazonaws.services.ec2.AmazonEC2;
+import com.amazonaws.services.ec2.AmazonEC2ClientBuilder;
+import com.example.CoordinatorServer.CloudProvider;
+import com.example.CoordinatorServer.Ec2CloudProvider;
+import com.example.CoordinatorServer.LatencyRecorder;
+import com.example.CoordinatorServer.SimulatedCloudProvider;
+
+/*
+ * Chooses the cloud provider used by the coordinator.
+ * coordinator.cloud.provider=ec2 (the default) talks to AWS, building its
+ * client as coordinator.cloud.ec2.client-init says (see Ec2ClientSupplier);
+ * coordinator.cloud.provider=simulator uses SimulatedCloudProvider for running
+ * offline and for load tests. Either way every call is timed into the "cloud"
+ * latency histograms.
+ */
+@Configuration
+public class CloudConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "coordinator.cloud.provider", havingValue = "ec2", matchIfMissing = true)
+    public CloudProvider ec2CloudProvider(LatencyRecorder latencyRecorder,
+            @Value("${aws.accessKeyId}") String awsaccessKeyId, @Value("${aws.secretKey}") String awssecretKey,
+            @Value("${coordinator.cloud.ec2.client-init:eager}") String clientInit) {
+        Ec2ClientSupplier ec2Client = Ec2ClientSupplier.create(clientInit, () -> {
+            BasicAWSCredentials awsCredentials = new BasicAWSCredentials(awsaccessKeyId, awssecretKey);
+            AmazonEC2 client = AmazonEC2ClientBuilder.standard()
+                    .withCredentials(new AWSStaticCredentialsProvider(awsCredentials))
+                    .build();
+            System.out.println("ec2Client initialization is successful.");
+            return client;
+        });
+        return new TimedCloudProvider(new Ec2CloudProvider(ec2Client), latencyRecorder);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "coordinator.cloud.provider", havingValue = "simulator")
+    public CloudProvider simulatedCloudProvider(LatencyRecorder latencyRecorder,
+            @Value("${coordinator.simulator.seed:1}") long seed,
+            @Value("${coordinator.simulator.latency-ms:0}") long latencyMillis,
+            @Value("${coordinator.simulator.latency-jitter-ms:0}") long latencyJitterMillis,
+            @Value("${coordinator.simulator.rate-limit-per-second:0}") double rateLimitPerSecond,
+            @Value("${coordinator.simulator.failure-rate:0}") double failureRate,
+            @Value("${coordinator.simulator.failure-operations:}") List<String> failureOperations,
+            @Value("${coordinator.simulator.instances:}") List<String> instances) {
+        System.out.println("Using the cloud simulator (latency " + latencyMillis + "+" + latencyJitterMillis
+                + " ms, rate limit " + rateLimitPerSecond + "/s, failure rate " + failureRate
+                + "). No AWS calls will be made.");
+        SimulatedCloudProvider simulator = new SimulatedCloudProvider(seed, latencyMillis, latencyJitterMillis,
+                rateLimitPerSecond, failureRate, new HashSet<>(failureOperations));
+        // instanceId:privateIp of every instance the simulator runs from the start
+        for (String instance : instances) {
+            if (instance.isBlank()) {
+                continue;
+            }
+            String[] parts = instance.trim().split(":");
+            if (parts.length != 2 || parts[0].isEmpty() || parts[1].isEmpty()) {
+                throw new IllegalArgumentException("coordinator.simulator.instances entry '" + instance
+                        + "' is not instanceId:privateIp");
+            }
+            simulator.addInstance(parts[0], parts[1]);
+        }
+        return new TimedCloudProvider(simulator, latencyRecorder);
+    }
+}
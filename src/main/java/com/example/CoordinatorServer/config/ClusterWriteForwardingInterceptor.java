@@ -0,0 +1,96 @@
+package com.example.CoordinatorServer.config;
+
+import java.net.URI;
+import java.util.Collections;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import com.example.CoordinatorServer.RaftNode;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/*
+ * Sends every state-changing request (anything but GET) that reaches a
+ * follower replica on to the coordinator leader and relays its answer, so
+ * brokers can keep talking to whichever coordinator address they know. Reads
+ * are served from the follower's replicated state.
+ */
+@Component
+public class ClusterWriteForwardingInterceptor implements HandlerInterceptor {
+
+    private static final String LEADER_NOT_RESPONDING = "/leader-not-responding";
+
+    private final RaftNode raftNode;
+    private final RestTemplate clusterRestTemplate;
+    private final RestTemplate clusterFailoverRestTemplate;
+
+    public ClusterWriteForwardingInterceptor(RaftNode raftNode,
+            @Qualifier("clusterRestTemplate") RestTemplate clusterRestTemplate,
+            @Qualifier("clusterFailoverRestTemplate") RestTemplate clusterFailoverRestTemplate) {
+        this.raftNode = raftNode;
+        this.clusterRestTemplate = clusterRestTemplate;
+        this.clusterFailoverRestTemplate = clusterFailoverRestTemplate;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+            throws Exception {
+        if (HttpMethod.GET.matches(request.getMethod()) || raftNode.isLeader()) {
+            return true;
+        }
+        String leaderUrl = raftNode.getLeaderUrl();
+        if (leaderUrl == null) {
+            response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, "No coordinator leader is elected yet");
+            return false;
+        }
+
+        String query = request.getQueryString();
+        URI target = URI.create(leaderUrl + request.getRequestURI() + (query == null ? "" : "?" + query));
+        HttpHeaders headers = new HttpHeaders();
+        if (request.getContentType() != null) {
+            headers.set(HttpHeaders.CONTENT_TYPE, request.getContentType());
+        }
+        for (String name : Collections.list(request.getHeaderNames())) {
+            if (name.equalsIgnoreCase(HttpHeaders.ACCEPT) || name.equalsIgnoreCase(HttpHeaders.IF_NONE_MATCH)) {
+                headers.set(name, request.getHeader(name));
+            }
+        }
+        byte[] body = StreamUtils.copyToByteArray(request.getInputStream());
+        // a failover report is answered only after the failover, which takes far longer than other writes
+        RestTemplate restTemplate = request.getRequestURI().endsWith(LEADER_NOT_RESPONDING)
+                ? clusterFailoverRestTemplate
+                : clusterRestTemplate;
+        ResponseEntity<byte[]> forwarded;
+        try {
+            forwarded = restTemplate.exchange(target, HttpMethod.valueOf(request.getMethod()),
+                    new HttpEntity<>(body, headers), byte[].class);
+        } catch (HttpStatusCodeException e) {
+            forwarded = ResponseEntity.status(e.getStatusCode()).headers(e.getResponseHeaders())
+                    .body(e.getResponseBodyAsByteArray());
+        } catch (RestClientException e) {
+            response.sendError(HttpServletResponse.SC_BAD_GATEWAY,
+                    "Coordinator leader " + leaderUrl + " is not reachable: " + e.getMessage());
+            return false;
+        }
+
+        response.setStatus(forwarded.getStatusCode().value());
+        if (forwarded.getHeaders().getContentType() != null) {
+            response.setContentType(forwarded.getHeaders().getContentType().toString());
+        }
+        if (forwarded.getBody() != null) {
+            response.getOutputStream().write(forwarded.getBody());
+        }
+        return false;
+    }
+}
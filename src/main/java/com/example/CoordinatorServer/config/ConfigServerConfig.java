@@ -0,0 +1,17 @@
+package com.example.CoordinatorServer.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.config.server.EnableConfigServer;
+import org.springframework.context.annotation.Configuration;
+
+/*
+ * Serves configuration from spring.cloud.config.server.git.uri, as the
+ * coordinator always has. coordinator.config-server.enabled=false leaves the
+ * config server out, and with it all of its auto-configuration, when nothing
+ * fetches configuration from the coordinator.
+ */
+@Configuration
+@ConditionalOnProperty(name = "coordinator.config-server.enabled", havingValue = "true", matchIfMissing = true)
+@EnableConfigServer
+public class ConfigServerConfig {
+}
@@ -0,0 +1,81 @@
+package com.example.CoordinatorServer.config;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import com.amazonaws.services.ec2.AmazonEC2;
+import com.example.CoordinatorServer.CloudProviderException;
+
+/*
+ * Hands out the one EC2 client, built when coordinator.cloud.ec2.client-init
+ * says: eager builds it before the coordinator starts, background on its own
+ * thread while the rest of the context starts, lazy on the first cloud call.
+ * Building the client loads most of the AWS SDK, which is a large part of a
+ * cold start. If building it fails, every call fails with a
+ * CloudProviderException instead of the coordinator failing to start.
+ */
+final class Ec2ClientSupplier implements Supplier<AmazonEC2> {
+    private final Supplier<AmazonEC2> builder;
+    private final AtomicReference<CompletableFuture<AmazonEC2>> client = new AtomicReference<>();
+
+    private Ec2ClientSupplier(Supplier<AmazonEC2> builder) {
+        this.builder = builder;
+    }
+
+    static Ec2ClientSupplier create(String clientInit, Supplier<AmazonEC2> builder) {
+        Ec2ClientSupplier supplier = new Ec2ClientSupplier(builder);
+        switch (clientInit) {
+            case "eager":
+                supplier.client.set(supplier.build());
+                break;
+            case "background":
+                supplier.client.set(CompletableFuture.supplyAsync(builder, runnable -> {
+                    Thread thread = new Thread(runnable, "ec2-client-init");
+                    thread.setDaemon(true);
+                    thread.start();
+                }));
+                break;
+            case "lazy":
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown coordinator.cloud.ec2.client-init: " + clientInit
+                        + " (expected eager, background or lazy)");
+        }
+        return supplier;
+    }
+
+    // builds the client on the calling thread; a failure is kept in the future rather than thrown
+    private CompletableFuture<AmazonEC2> build() {
+        try {
+            return CompletableFuture.completedFuture(builder.get());
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    @Override
+    public AmazonEC2 get() {
+        CompletableFuture<AmazonEC2> current = client.get();
+        if (current == null) {
+            CompletableFuture<AmazonEC2> building = new CompletableFuture<>();
+            if (client.compareAndSet(null, building)) {
+                build().whenComplete((built, error) -> {
+                    if (error != null) {
+                        building.completeExceptionally(error);
+                    } else {
+                        building.complete(built);
+                    }
+                });
+            }
+            current = client.get();
+        }
+        try {
+            return current.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            throw new CloudProviderException("EC2 client could not be created: " + cause.getMessage(), false, cause);
+        }
+    }
+}
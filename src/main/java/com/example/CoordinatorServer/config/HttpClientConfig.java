@@ -0,0 +1,82 @@
+package com.example.CoordinatorServer.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import com.example.CoordinatorServer.LatencyRecorder;
+
+@Configuration
+public class HttpClientConfig {
+
+    private final LatencyRecorder latencyRecorder;
+
+    public HttpClientConfig(LatencyRecorder latencyRecorder) {
+        this.latencyRecorder = latencyRecorder;
+    }
+
+    /*
+     * RestTemplate used for every call from the coordinator to broker nodes.
+     * Connect and read timeouts are bounded so that a hung broker cannot hold
+     * up failover.
+     */
+    @Bean
+    public RestTemplate peerRestTemplate(@Value("${coordinator.peer.connect-timeout-ms:500}") int connectTimeoutMs,
+            @Value("${coordinator.peer.read-timeout-ms:1000}") int readTimeoutMs) {
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(connectTimeoutMs);
+        requestFactory.setReadTimeout(readTimeoutMs);
+        return timed(new RestTemplate(requestFactory), "peer");
+    }
+
+    /*
+     * RestTemplate used by the heartbeat monitor. Its timeouts are tighter than
+     * the peer ones because a slow answer is itself a failure signal.
+     */
+    @Bean
+    public RestTemplate heartbeatRestTemplate(@Value("${coordinator.heartbeat.timeout-ms:300}") int timeoutMs) {
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(timeoutMs);
+        requestFactory.setReadTimeout(timeoutMs);
+        return timed(new RestTemplate(requestFactory), "heartbeat");
+    }
+
+    /*
+     * RestTemplate used between coordinator replicas for the replication RPCs
+     * and for forwarding writes to the coordinator leader.
+     */
+    @Bean
+    public RestTemplate clusterRestTemplate(
+            @Value("${coordinator.cluster.connect-timeout-ms:300}") int connectTimeoutMs,
+            @Value("${coordinator.cluster.read-timeout-ms:3000}") int readTimeoutMs) {
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(connectTimeoutMs);
+        requestFactory.setReadTimeout(readTimeoutMs);
+        return timed(new RestTemplate(requestFactory), "cluster");
+    }
+
+    /*
+     * RestTemplate used to forward a /leader-not-responding report to the
+     * coordinator leader. The leader answers once the whole failover is done:
+     * the ping, the cloud calls, the replicated state changes and the peer
+     * broadcast, so the read timeout has to outlast the slowest failover that
+     * still succeeds rather than a single replication RPC.
+     */
+    @Bean
+    public RestTemplate clusterFailoverRestTemplate(
+            @Value("${coordinator.cluster.connect-timeout-ms:300}") int connectTimeoutMs,
+            @Value("${coordinator.cluster.failover-read-timeout-ms:30000}") int readTimeoutMs) {
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(connectTimeoutMs);
+        requestFactory.setReadTimeout(readTimeoutMs);
+        return timed(new RestTemplate(requestFactory), "cluster");
+    }
+
+    // every outgoing call is timed into the latency histograms of the given family
+    private RestTemplate timed(RestTemplate restTemplate, String family) {
+        restTemplate.getInterceptors().add(new TimedClientHttpRequestInterceptor(latencyRecorder, family));
+        return restTemplate;
+    }
+}
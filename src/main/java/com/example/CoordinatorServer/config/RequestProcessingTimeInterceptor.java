@@ -1,34 +1,90 @@
 package com.example.CoordinatorServer.config;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.web.servlet.HandlerInterceptor;
-import org.springframework.web.servlet.ModelAndView;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import com.example.CoordinatorServer.LatencyRecorder;
 
-import javax.servlet.http.HttpServletRequest;
-import javax.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 
-public class RequestProcessingTimeInterceptor implements HandlerInterceptor {
+/*
+ * Records how long each request takes into a latency histogram per endpoint
+ * (family "http <method>", name = the matched URL pattern), from the first
+ * dispatch to completion. Async requests such as long-polls are measured
+ * across their async dispatch, since the start time is kept until then.
+ */
+public class RequestProcessingTimeInterceptor implements AsyncHandlerInterceptor {
 
     private static final Logger logger = LoggerFactory.getLogger(RequestProcessingTimeInterceptor.class);
+    private static final String START_TIME_ATTRIBUTE = RequestProcessingTimeInterceptor.class.getName() + ".start";
 
-    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
-            throws Exception {
-        request.setAttribute("startTime", System.currentTimeMillis());
+    // start time kept as a primitive; platform request threads reuse one each instead of boxing a Long per request
+    private final ThreadLocal<StartTime> reusableStartTime = ThreadLocal.withInitial(StartTime::new);
+    private final LatencyRecorder latencyRecorder;
+    /*
+     * Whether requests are served on virtual threads, from the same switch
+     * that moves Tomcat onto them, rather than Thread.isVirtual(), which does
+     * not exist before Java 21.
+     */
+    private final boolean virtualThreads;
+    // "http GET" etc., so the hot path does not build the family name per request
+    private final Map<String, String> familyByMethod = new ConcurrentHashMap<>();
+
+    public RequestProcessingTimeInterceptor(LatencyRecorder latencyRecorder, boolean virtualThreads) {
+        this.latencyRecorder = latencyRecorder;
+        this.virtualThreads = virtualThreads;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // also called again on the async dispatch, which must keep the original start
+        if (request.getAttribute(START_TIME_ATTRIBUTE) == null) {
+            // a virtual thread serves a single request, so a thread-local would cost more than it saves
+            StartTime start = virtualThreads ? new StartTime() : reusableStartTime.get();
+            start.nanos = System.nanoTime();
+            request.setAttribute(START_TIME_ATTRIBUTE, start);
+        }
         return true;
     }
 
-    public void postHandle(HttpServletRequest request, HttpServletResponse response, Object handler,
-            ModelAndView modelAndView) throws Exception {
-        // Do nothing here, as we're only interested in measuring the time taken for
-        // processing.
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+            Object handler) {
+        // the thread moves on to other requests while this one waits, so it needs a start time of its own
+        StartTime start = (StartTime) request.getAttribute(START_TIME_ATTRIBUTE);
+        if (start != null) {
+            StartTime own = new StartTime();
+            own.nanos = start.nanos;
+            request.setAttribute(START_TIME_ATTRIBUTE, own);
+        }
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+            Exception ex) {
+        StartTime start = (StartTime) request.getAttribute(START_TIME_ATTRIBUTE);
+        if (start == null) {
+            return;
+        }
+        long elapsedNanos = System.nanoTime() - start.nanos;
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String family = familyByMethod.get(request.getMethod());
+        if (family == null) {
+            family = familyByMethod.computeIfAbsent(request.getMethod(), method -> "http " + method);
+        }
+        latencyRecorder.record(family, pattern == null ? "unmapped" : pattern.toString(), elapsedNanos);
+        if (logger.isDebugEnabled()) {
+            logger.debug("Request URL: {}, Time Taken: {} us", request.getRequestURL(), elapsedNanos / 1000);
+        }
     }
 
-    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex)
-            throws Exception {
-        long startTime = (Long) request.getAttribute("startTime");
-        long endTime = System.currentTimeMillis();
-        long timeTaken = endTime - startTime; // ms
-        logger.info("Request URL: {}, Time Taken: {} ms", request.getRequestURL().toString(), timeTaken);
+    private static final class StartTime {
+        long nanos;
     }
 }
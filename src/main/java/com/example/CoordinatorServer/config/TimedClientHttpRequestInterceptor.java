@@ -0,0 +1,38 @@
+package com.example.CoordinatorServer.config;
+
+import java.io.IOException;
+
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import com.example.CoordinatorServer.LatencyRecorder;
+
+/*
+ * Times outgoing HTTP calls of one RestTemplate. Calls are named by method and
+ * path only; the host is left out so that a cluster of brokers does not turn
+ * into one histogram per broker.
+ */
+public class TimedClientHttpRequestInterceptor implements ClientHttpRequestInterceptor {
+    private final LatencyRecorder latencyRecorder;
+    private final String family;
+
+    public TimedClientHttpRequestInterceptor(LatencyRecorder latencyRecorder, String family) {
+        this.latencyRecorder = latencyRecorder;
+        this.family = family;
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        long start = System.nanoTime();
+        try {
+            return execution.execute(request, body);
+        } finally {
+            // failed and timed-out calls are recorded too; they are what failover waits on
+            latencyRecorder.record(family, request.getMethod() + " " + request.getURI().getPath(),
+                    System.nanoTime() - start);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.CoordinatorServer.config;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import com.example.CoordinatorServer.CloudProvider;
+import com.example.CoordinatorServer.LatencyRecorder;
+
+/*
+ * Times every call of a CloudProvider into the "cloud" latency family, named
+ * after the operation. Failed calls are timed too.
+ */
+final class TimedCloudProvider implements CloudProvider {
+    private static final String FAMILY = "cloud";
+
+    private final CloudProvider delegate;
+    private final LatencyRecorder latencyRecorder;
+
+    TimedCloudProvider(CloudProvider delegate, LatencyRecorder latencyRecorder) {
+        this.delegate = delegate;
+        this.latencyRecorder = latencyRecorder;
+    }
+
+    @Override
+    public AllocatedAddress allocateAddress() {
+        return time("allocateAddress", delegate::allocateAddress);
+    }
+
+    @Override
+    public String associateAddress(String allocationId, String instanceId) {
+        return time("associateAddress", () -> delegate.associateAddress(allocationId, instanceId));
+    }
+
+    @Override
+    public void disassociateAddress(String associationId) {
+        time("disassociateAddress", () -> {
+            delegate.disassociateAddress(associationId);
+            return null;
+        });
+    }
+
+    @Override
+    public String findAssociationId(String allocationId, String instanceId) {
+        return time("findAssociationId", () -> delegate.findAssociationId(allocationId, instanceId));
+    }
+
+    @Override
+    public Map<String, String> describePrivateIpAddresses(Collection<String> instanceIds) {
+        return time("describePrivateIpAddresses", () -> delegate.describePrivateIpAddresses(instanceIds));
+    }
+
+    @Override
+    public void terminateInstances(Collection<String> instanceIds) {
+        time("terminateInstances", () -> {
+            delegate.terminateInstances(instanceIds);
+            return null;
+        });
+    }
+
+    private <T> T time(String operation, Supplier<T> call) {
+        long start = System.nanoTime();
+        try {
+            return call.get();
+        } finally {
+            latencyRecorder.record(FAMILY, operation, System.nanoTime() - start);
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.example.CoordinatorServer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.function.BooleanSupplier;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/*
+ * One coordinator on a random port against the cloud simulator, driven over
+ * HTTP. The simulator runs instances i-7 and i-8 only.
+ */
+class BrokerRegistrationControllerTest {
+    private static final long TIMEOUT_MILLIS = 10_000;
+
+    @TempDir
+    Path stateDir;
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+    private ConfigurableApplicationContext context;
+    private BrokerRegistry brokerRegistry;
+    private CloudOperationsPipeline cloudOperationsPipeline;
+    private String baseUrl;
+
+    @BeforeEach
+    void startCoordinator() {
+        context = SpringApplication.run(CoordinatorServerApplication.class,
+                "--server.port=0",
+                "--coordinator.cloud.provider=simulator",
+                "--coordinator.simulator.instances=i-7:127.0.0.7,i-8:127.0.0.8",
+                "--coordinator.config-server.enabled=false",
+                "--coordinator.succession.enabled=false",
+                "--coordinator.state.fsync=false",
+                "--coordinator.state.dir=" + stateDir,
+                "--logging.level.root=WARN");
+        baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+        brokerRegistry = context.getBean(BrokerRegistry.class);
+        cloudOperationsPipeline = context.getBean(CloudOperationsPipeline.class);
+    }
+
+    @AfterEach
+    void stopCoordinator() {
+        context.close();
+    }
+
+    @Test
+    void brokerWithoutPrivateIpIsRegisteredOffTheRequestThread() throws Exception {
+        HttpResponse<String> response = post("/register-broker",
+                "{\"uniqueId\":7,\"ec2instanceID\":\"i-7\",\"port\":8080}");
+        assertEquals(202, response.statusCode(), response.body());
+        long operationId = new JSONObject(response.body()).getLong("cloudOperationId");
+
+        await("the looked-up broker to be registered",
+                () -> brokerRegistry.snapshot(Broker.DEFAULT_CLUSTER).getBrokers().containsKey(7));
+        assertEquals("127.0.0.7", brokerRegistry.get(Broker.DEFAULT_CLUSTER, 7).getIpAddress());
+        assertEquals(CloudOperation.Status.SUCCEEDED, cloudOperationsPipeline.getOperation(operationId).getStatus());
+    }
+
+    @Test
+    void brokerOfAnUnknownInstanceIsNotRegistered() throws Exception {
+        HttpResponse<String> response = post("/register-broker",
+                "{\"uniqueId\":9,\"ec2instanceID\":\"i-9\",\"port\":8080}");
+        assertEquals(202, response.statusCode(), response.body());
+        CloudOperation operation = cloudOperationsPipeline
+                .getOperation(new JSONObject(response.body()).getLong("cloudOperationId"));
+
+        await("the lookup to fail", () -> operation.getStatus() == CloudOperation.Status.FAILED);
+        assertTrue(operation.getError().contains("i-9"), operation.getError());
+        assertTrue(brokerRegistry.snapshot(Broker.DEFAULT_CLUSTER).getBrokers().isEmpty());
+    }
+
+    @Test
+    void brokerWithNeitherPrivateIpNorInstanceIdIsRejected() throws Exception {
+        HttpResponse<String> response = post("/register-broker", "{\"uniqueId\":9,\"port\":8080}");
+        assertEquals(400, response.statusCode(), response.body());
+        assertEquals(Set.of(), brokerRegistry.snapshot(Broker.DEFAULT_CLUSTER).getBrokers().keySet());
+    }
+
+    @Test
+    void batchOfBrokersIsRegisteredAndDeregisteredInOneRequestEach() throws Exception {
+        HttpResponse<String> response = post("/clusters/orders/register-brokers",
+                "[{\"uniqueId\":7,\"ipAddress\":\"127.0.0.7\",\"ec2instanceID\":\"i-7\",\"port\":8080},"
+                        + "{\"uniqueId\":8,\"ipAddress\":\"127.0.0.8\",\"ec2instanceID\":\"i-8\",\"port\":8080}]");
+        assertEquals(200, response.statusCode(), response.body());
+        assertEquals(List.of(7, 8), new JSONObject(response.body()).getJSONArray("registered").toList());
+        assertEquals(Set.of(7, 8), brokerRegistry.snapshot("orders").getBrokers().keySet());
+        assertTrue(brokerRegistry.snapshot(Broker.DEFAULT_CLUSTER).isEmpty());
+
+        // 9 was never registered and is left out of the answer
+        response = post("/clusters/orders/deregister-brokers", "[7,9]");
+        assertEquals(200, response.statusCode(), response.body());
+        JSONArray removed = new JSONArray(response.body());
+        assertEquals(1, removed.length());
+        assertEquals(7, removed.getJSONObject(0).getInt("uniqueId"));
+        assertEquals(Set.of(8), brokerRegistry.snapshot("orders").getBrokers().keySet());
+    }
+
+    @Test
+    void batchWithAMissingPrivateIpIsRegisteredWholeOnceLookedUp() throws Exception {
+        HttpResponse<String> response = post("/register-brokers",
+                "[{\"uniqueId\":7,\"ipAddress\":\"127.0.0.7\",\"ec2instanceID\":\"i-7\",\"port\":8080},"
+                        + "{\"uniqueId\":8,\"ec2instanceID\":\"i-8\",\"port\":8080}]");
+        assertEquals(202, response.statusCode(), response.body());
+        JSONObject body = new JSONObject(response.body());
+        assertEquals(List.of(7, 8), body.getJSONArray("pending").toList());
+
+        CloudOperation operation = cloudOperationsPipeline.getOperation(body.getLong("cloudOperationId"));
+        await("the batch to be registered", () -> operation.getStatus() == CloudOperation.Status.SUCCEEDED);
+        assertEquals(Set.of(7, 8), brokerRegistry.snapshot(Broker.DEFAULT_CLUSTER).getBrokers().keySet());
+        assertEquals("127.0.0.8", brokerRegistry.get(Broker.DEFAULT_CLUSTER, 8).getIpAddress());
+    }
+
+    @Test
+    void unchangedRegistryIsAnsweredNotModified() throws Exception {
+        registerWithIp(7);
+        HttpResponse<String> first = get("/broker-registry", null, null);
+        assertEquals(200, first.statusCode(), first.body());
+        String etag = first.headers().firstValue("ETag").orElseThrow();
+
+        HttpResponse<String> again = get("/broker-registry", null, etag);
+        assertEquals(304, again.statusCode());
+        assertEquals("", again.body());
+
+        registerWithIp(8);
+        HttpResponse<String> changed = get("/broker-registry", null, etag);
+        assertEquals(200, changed.statusCode());
+        assertNotEquals(etag, changed.headers().firstValue("ETag").orElseThrow());
+    }
+
+    @Test
+    void jsonAndBinaryTopologyHaveTheirOwnEtags() throws Exception {
+        registerWithIp(7);
+        HttpResponse<String> json = get("/topology", null, null);
+        HttpResponse<String> binary = get("/topology", Topology.MEDIA_TYPE, null);
+        assertEquals(Topology.MEDIA_TYPE, binary.headers().firstValue("Content-Type").orElseThrow());
+        assertEquals(List.of("Accept"), binary.headers().allValues("Vary"));
+        String jsonEtag = json.headers().firstValue("ETag").orElseThrow();
+        assertNotEquals(jsonEtag, binary.headers().firstValue("ETag").orElseThrow());
+
+        // the JSON validator does not match the binary body
+        assertEquals(200, get("/topology", Topology.MEDIA_TYPE, jsonEtag).statusCode());
+        assertEquals(304, get("/topology", null, jsonEtag).statusCode());
+    }
+
+    private HttpResponse<String> post(String path, String json) throws IOException, InterruptedException {
+        return httpClient.send(HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private void registerWithIp(int uniqueId) throws IOException, InterruptedException {
+        HttpResponse<String> response = post("/register-broker", "{\"uniqueId\":" + uniqueId
+                + ",\"ipAddress\":\"127.0.0." + uniqueId + "\",\"ec2instanceID\":\"i-" + uniqueId
+                + "\",\"port\":8080}");
+        assertEquals(200, response.statusCode(), response.body());
+    }
+
+    private HttpResponse<String> get(String path, String accept, String ifNoneMatch)
+            throws IOException, InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl + path)).GET();
+        if (accept != null) {
+            request.header("Accept", accept);
+        }
+        if (ifNoneMatch != null) {
+            request.header("If-None-Match", ifNoneMatch);
+        }
+        return httpClient.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private void await(String what, BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new AssertionError("Timed out waiting for " + what);
+            }
+            Thread.sleep(20);
+        }
+    }
+}
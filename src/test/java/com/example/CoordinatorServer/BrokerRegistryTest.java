@@ -0,0 +1,59 @@
+package com.example.CoordinatorServer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+class BrokerRegistryTest {
+    private final BrokerRegistry brokerRegistry = new BrokerRegistry();
+
+    @Test
+    void registeredBrokersCannotBeChangedByTheCaller() {
+        Broker broker = new Broker(Broker.DEFAULT_CLUSTER, "10.0.0.1", 8080, 1, "i-1");
+        brokerRegistry.register(broker);
+        broker.setIpAddress("10.0.0.99");
+        broker.setClusterId("other");
+
+        assertEquals("10.0.0.1", brokerRegistry.get(Broker.DEFAULT_CLUSTER, 1).getIpAddress());
+        assertEquals(1, brokerRegistry.findUniqueIdByIpAddress(Broker.DEFAULT_CLUSTER, "10.0.0.1"));
+        assertNull(brokerRegistry.findUniqueIdByIpAddress(Broker.DEFAULT_CLUSTER, "10.0.0.99"));
+    }
+
+    @Test
+    void indexesFollowReplacedAndRemovedBrokers() {
+        brokerRegistry.registerAll(Broker.DEFAULT_CLUSTER, List.of(
+                new Broker(Broker.DEFAULT_CLUSTER, "10.0.0.1", 8080, 1, "i-1"),
+                new Broker(Broker.DEFAULT_CLUSTER, "10.0.0.2", 8080, 2, "i-2")));
+        // broker 1 came back on another instance
+        brokerRegistry.register(new Broker(Broker.DEFAULT_CLUSTER, "10.0.0.3", 8080, 1, "i-3"));
+
+        assertNull(brokerRegistry.findUniqueIdByIpAddress(Broker.DEFAULT_CLUSTER, "10.0.0.1"));
+        assertNull(brokerRegistry.findUniqueIdByInstanceId(Broker.DEFAULT_CLUSTER, "i-1"));
+        assertEquals(1, brokerRegistry.findUniqueIdByInstanceId(Broker.DEFAULT_CLUSTER, "i-3"));
+
+        assertEquals(2, brokerRegistry.remove(Broker.DEFAULT_CLUSTER, 2).getUniqueId());
+        assertNull(brokerRegistry.findUniqueIdByIpAddress(Broker.DEFAULT_CLUSTER, "10.0.0.2"));
+        assertEquals(List.of("10.0.0.3"), brokerRegistry.snapshot(Broker.DEFAULT_CLUSTER).getIpAddresses());
+    }
+
+    @Test
+    void snapshotIsSharedUntilTheNextChange() {
+        brokerRegistry.register(new Broker(Broker.DEFAULT_CLUSTER, "10.0.0.1", 8080, 1, "i-1"));
+        BrokerRegistry.Snapshot first = brokerRegistry.snapshot(Broker.DEFAULT_CLUSTER);
+        assertSame(first, brokerRegistry.snapshot(Broker.DEFAULT_CLUSTER));
+        // removing a broker that is not registered changes nothing
+        assertNull(brokerRegistry.remove(Broker.DEFAULT_CLUSTER, 5));
+        assertSame(first, brokerRegistry.snapshot(Broker.DEFAULT_CLUSTER));
+
+        long version = brokerRegistry.register(new Broker(Broker.DEFAULT_CLUSTER, "10.0.0.2", 8080, 2, "i-2"));
+        BrokerRegistry.Snapshot second = brokerRegistry.snapshot(Broker.DEFAULT_CLUSTER);
+        assertEquals(version, second.getVersion());
+        assertEquals(Set.of(1, 2), second.getBrokers().keySet());
+        assertEquals(Set.of(1), first.getBrokers().keySet());
+    }
+}
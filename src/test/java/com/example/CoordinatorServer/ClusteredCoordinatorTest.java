@@ -0,0 +1,234 @@
+package com.example.CoordinatorServer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/*
+ * Three coordinator replicas on localhost against the cloud simulator, each
+ * with its own state directory (the Raft term and vote live there too).
+ * Writes go to a follower, so they also exercise forwarding to the leader.
+ */
+class ClusteredCoordinatorTest {
+    private static final int REPLICAS = 3;
+    private static final long TIMEOUT_MILLIS = 20_000;
+
+    @TempDir
+    Path stateDirs;
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+    private final int[] ports = new int[REPLICAS];
+    private final ConfigurableApplicationContext[] replicas = new ConfigurableApplicationContext[REPLICAS];
+
+    @AfterEach
+    void stopReplicas() {
+        for (ConfigurableApplicationContext replica : replicas) {
+            if (replica != null && replica.isActive()) {
+                replica.close();
+            }
+        }
+    }
+
+    @Test
+    void replicasConvergeAcrossLeaderLossAndRestart() throws Exception {
+        pickPorts();
+        for (int i = 0; i < REPLICAS; i++) {
+            start(i);
+        }
+
+        int leader = awaitLeader();
+        String leaderUrl = "http://localhost:" + ports[leader];
+        for (int i = 0; i < REPLICAS; i++) {
+            RaftNode node = replicas[i].getBean(RaftNode.class);
+            await("replica " + i + " to follow " + leaderUrl, () -> leaderUrl.equals(node.getLeaderUrl()));
+        }
+        register((leader + 1) % REPLICAS, 1);
+        for (int i = 0; i < REPLICAS; i++) {
+            awaitBrokers(i, Set.of(1));
+        }
+        // the first broker of a cluster becomes its lead broker on the elastic-ip lane, after the registration returns
+        String leadBroker = "127.0.0.1";
+        for (int i = 0; i < REPLICAS; i++) {
+            int replica = i;
+            await("replica " + i + " to learn the lead broker",
+                    () -> leadBroker.equals(get(replica, "/getCurrent-leadBroker-PrivateIP")));
+        }
+
+        // the remaining two still form a majority
+        replicas[leader].close();
+        int newLeader = awaitLeader();
+        assertTrue(newLeader != leader);
+        int follower = 3 - leader - newLeader;
+        String newLeaderUrl = "http://localhost:" + ports[newLeader];
+        RaftNode followerNode = replicas[follower].getBean(RaftNode.class);
+        await("replica " + follower + " to follow " + newLeaderUrl,
+                () -> newLeaderUrl.equals(followerNode.getLeaderUrl()));
+        register(follower, 2);
+        awaitBrokers(newLeader, Set.of(1, 2));
+        awaitBrokers(follower, Set.of(1, 2));
+
+        // comes back from its own state directory and catches up on what it missed
+        start(leader);
+        awaitBrokers(leader, Set.of(1, 2));
+        assertEquals(leadBroker, get(leader, "/getCurrent-leadBroker-PrivateIP"));
+    }
+
+
+    @Test
+    void replicasTakeTheLeaderStateAfterTheWholeClusterRestarts() throws Exception {
+        pickPorts();
+        for (int i = 0; i < REPLICAS; i++) {
+            start(i);
+        }
+        awaitLeader();
+        register(0, 1);
+        for (int i = 0; i < REPLICAS; i++) {
+            awaitBrokers(i, Set.of(1));
+        }
+        for (ConfigurableApplicationContext replica : replicas) {
+            replica.close();
+        }
+
+        // replicas 0 and 1 each hold a change the others never saw, so whoever
+        // leads next, some follower's own state differs from the leader's
+        recordOffline(0, 98);
+        recordOffline(1, 99);
+        for (int i = 0; i < REPLICAS; i++) {
+            start(i);
+        }
+        int leader = awaitLeader();
+        Set<Integer> leaderBrokers = new TreeSet<>(brokers(leader));
+        for (int i = 0; i < REPLICAS; i++) {
+            awaitBrokers(i, leaderBrokers);
+        }
+
+        // and the replicas keep replicating from there
+        int follower = (leader + 1) % REPLICAS;
+        String leaderUrl = "http://localhost:" + ports[leader];
+        RaftNode followerNode = replicas[follower].getBean(RaftNode.class);
+        await("replica " + follower + " to follow " + leaderUrl, () -> leaderUrl.equals(followerNode.getLeaderUrl()));
+        register(follower, 2);
+        Set<Integer> expected = new TreeSet<>(leaderBrokers);
+        expected.add(2);
+        for (int i = 0; i < REPLICAS; i++) {
+            awaitBrokers(i, expected);
+        }
+    }
+
+    private void pickPorts() throws IOException {
+        for (int i = 0; i < REPLICAS; i++) {
+            try (ServerSocket socket = new ServerSocket(0)) {
+                ports[i] = socket.getLocalPort();
+            }
+        }
+    }
+
+    // registers a broker straight into a stopped replica's state log
+    private void recordOffline(int replica, int uniqueId) {
+        CoordinatorStateLog stateLog = new CoordinatorStateLog(true,
+                stateDirs.resolve("replica-" + replica).toString(), false, 1000);
+        stateLog.recover();
+        try {
+            stateLog.record(CoordinatorEvent.brokerRegistered(
+                    new Broker(Broker.DEFAULT_CLUSTER, "127.0.0." + uniqueId, 8080, uniqueId, "i-" + uniqueId)));
+        } finally {
+            stateLog.close();
+        }
+    }
+
+    private Set<Integer> brokers(int replica) {
+        return replicas[replica].getBean(BrokerRegistry.class).snapshot("default").getBrokers().keySet();
+    }
+
+    private void start(int replica) {
+        List<String> peerUrls = new ArrayList<>();
+        for (int port : ports) {
+            peerUrls.add("http://localhost:" + port);
+        }
+        replicas[replica] = SpringApplication.run(CoordinatorServerApplication.class,
+                "--server.port=" + ports[replica],
+                "--coordinator.cloud.provider=simulator",
+                "--coordinator.config-server.enabled=false",
+                "--coordinator.heartbeat.enabled=false",
+                "--coordinator.succession.enabled=false",
+                "--coordinator.state.fsync=false",
+                "--coordinator.state.dir=" + stateDirs.resolve("replica-" + replica),
+                "--coordinator.cluster.enabled=true",
+                "--coordinator.cluster.self-url=http://localhost:" + ports[replica],
+                "--coordinator.cluster.peer-urls=" + String.join(",", peerUrls),
+                "--logging.level.root=WARN");
+    }
+
+    private int awaitLeader() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (System.currentTimeMillis() < deadline) {
+            for (int i = 0; i < REPLICAS; i++) {
+                if (replicas[i].isActive() && replicas[i].getBean(RaftNode.class).isLeader()) {
+                    return i;
+                }
+            }
+            Thread.sleep(50);
+        }
+        throw new AssertionError("No coordinator leader elected within " + TIMEOUT_MILLIS + " ms");
+    }
+
+    private void awaitBrokers(int replica, Set<Integer> uniqueIds) throws InterruptedException {
+        BrokerRegistry registry = replicas[replica].getBean(BrokerRegistry.class);
+        await("replica " + replica + " to hold brokers " + uniqueIds,
+                () -> registry.snapshot("default").getBrokers().keySet().equals(uniqueIds));
+    }
+
+    private void await(String what, BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new AssertionError("Timed out waiting for " + what);
+            }
+            Thread.sleep(50);
+        }
+    }
+
+    private void register(int replica, int uniqueId) throws IOException, InterruptedException {
+        String broker = "{\"uniqueId\":" + uniqueId + ",\"ec2instanceID\":\"i-" + uniqueId
+                + "\",\"ipAddress\":\"127.0.0." + uniqueId + "\",\"port\":8080}";
+        HttpResponse<String> response = httpClient.send(HttpRequest.newBuilder(uri(replica, "/register-broker"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(broker))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode(), response.body());
+    }
+
+    private String get(int replica, String path) {
+        try {
+            return httpClient.send(HttpRequest.newBuilder(uri(replica, path)).GET().build(),
+                    HttpResponse.BodyHandlers.ofString()).body();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private URI uri(int replica, String path) {
+        return URI.create("http://localhost:" + ports[replica] + path);
+    }
+}
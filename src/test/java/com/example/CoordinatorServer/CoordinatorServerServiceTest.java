@@ -0,0 +1,83 @@
+package com.example.CoordinatorServer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class CoordinatorServerServiceTest {
+    private final BrokerRegistry brokerRegistry = new BrokerRegistry();
+    private final CoordinatorStateLog coordinatorStateLog = mock(CoordinatorStateLog.class);
+    private CoordinatorServerService coordinatorServerService;
+
+    @BeforeEach
+    void setUp() {
+        coordinatorServerService = new CoordinatorServerService(brokerRegistry, mock(CloudOperationsPipeline.class),
+                mock(InstanceMetadataCache.class), mock(SuccessionPlan.class), coordinatorStateLog,
+                mock(RaftNode.class), mock(LeaderChangeNotifier.class), mock(CloudProvider.class),
+                mock(BrokerLoadTracker.class), new BrokerLatencyTracker());
+    }
+
+    @Test
+    void changesBecomeVisibleOnlyOnceDurable() {
+        CompletableFuture<Void> durable = new CompletableFuture<>();
+        when(coordinatorStateLog.append(anyList())).thenReturn(durable);
+
+        CompletableFuture<Void> applied = coordinatorServerService.apply(List.of(registered(1)));
+        assertTrue(brokerRegistry.snapshot(Broker.DEFAULT_CLUSTER).getBrokers().isEmpty());
+        // a Raft snapshot taken meanwhile must still carry the queued change
+        assertEquals(Set.of(1), coordinatorServerService.snapshot().cluster(Broker.DEFAULT_CLUSTER)
+                .getBrokers().keySet());
+
+        durable.complete(null);
+        applied.join();
+        assertEquals(Set.of(1), brokerRegistry.snapshot(Broker.DEFAULT_CLUSTER).getBrokers().keySet());
+    }
+
+    @Test
+    void failedWriteLeavesTheStateUnchanged() {
+        when(coordinatorStateLog.append(anyList()))
+                .thenReturn(CompletableFuture.failedFuture(new IOException("disk full")));
+
+        CompletableFuture<Void> applied = coordinatorServerService.apply(List.of(registered(1)));
+        CompletionException failure = assertThrows(CompletionException.class, applied::join);
+        assertTrue(failure.getCause() instanceof IOException);
+        assertTrue(brokerRegistry.snapshot(Broker.DEFAULT_CLUSTER).getBrokers().isEmpty());
+        assertTrue(coordinatorServerService.snapshot().cluster(Broker.DEFAULT_CLUSTER).getBrokers().isEmpty());
+    }
+
+    @Test
+    void changesApplyInTheOrderTheyWereLogged() {
+        CompletableFuture<Void> first = new CompletableFuture<>();
+        CompletableFuture<Void> second = new CompletableFuture<>();
+        when(coordinatorStateLog.append(anyList())).thenReturn(first).thenReturn(second);
+
+        coordinatorServerService.apply(List.of(registered(1)));
+        CompletableFuture<Void> applied = coordinatorServerService
+                .apply(List.of(CoordinatorEvent.brokerDeregistered(Broker.DEFAULT_CLUSTER, 1)));
+        assertTrue(coordinatorServerService.snapshot().cluster(Broker.DEFAULT_CLUSTER).getBrokers().isEmpty());
+
+        // the log completes its futures in order
+        first.complete(null);
+        assertEquals(Set.of(1), brokerRegistry.snapshot(Broker.DEFAULT_CLUSTER).getBrokers().keySet());
+        second.complete(null);
+        applied.join();
+        assertTrue(brokerRegistry.snapshot(Broker.DEFAULT_CLUSTER).getBrokers().isEmpty());
+    }
+
+    private static CoordinatorEvent registered(int uniqueId) {
+        return CoordinatorEvent.brokerRegistered(
+                new Broker(Broker.DEFAULT_CLUSTER, "10.0.0." + uniqueId, 8080, uniqueId, "i-" + uniqueId));
+    }
+}
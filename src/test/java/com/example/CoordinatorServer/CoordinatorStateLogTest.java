@@ -0,0 +1,136 @@
+package com.example.CoordinatorServer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Set;
+
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class CoordinatorStateLogTest {
+
+    @TempDir
+    Path stateDir;
+
+    @Test
+    void replaysRecordedEventsAfterRestart() {
+        CoordinatorStateLog stateLog = open(1000);
+        try {
+            stateLog.recordAll(List.of(registered(1), registered(2), registered(3)));
+            stateLog.record(CoordinatorEvent.brokerDeregistered(Broker.DEFAULT_CLUSTER, 2));
+            stateLog.record(CoordinatorEvent.leadershipChanged(Broker.DEFAULT_CLUSTER, "203.0.113.1",
+                    "eipalloc-1", "eipassoc-1", "i-3", "10.0.0.3", 1));
+        } finally {
+            stateLog.close();
+        }
+
+        CoordinatorState recovered = recover();
+        CoordinatorState.ClusterState cluster = recovered.cluster(Broker.DEFAULT_CLUSTER);
+        assertEquals(Set.of(1, 3), cluster.getBrokers().keySet());
+        assertEquals("i-3", cluster.leadershipEvent().getString("leaderInstanceId"));
+    }
+
+    @Test
+    void tornTailIsCutOffAndLaterRecordsStayReadable() throws IOException {
+        CoordinatorStateLog stateLog = open(1000);
+        try {
+            stateLog.record(registered(1));
+        } finally {
+            stateLog.close();
+        }
+        Path wal = stateDir.resolve("coordinator.wal");
+        long intactSize = Files.size(wal);
+        // a record header promising more bytes than made it to disk before a crash
+        ByteBuffer torn = ByteBuffer.allocate(12).putInt(200).putInt(0).putInt(42).flip();
+        try (var channel = Files.newByteChannel(wal, StandardOpenOption.APPEND)) {
+            channel.write(torn);
+        }
+
+        stateLog = new CoordinatorStateLog(true, stateDir.toString(), false, 1000);
+        try {
+            assertEquals(Set.of(1), stateLog.recover().cluster(Broker.DEFAULT_CLUSTER).getBrokers().keySet());
+            assertEquals(intactSize, Files.size(wal));
+            stateLog.record(registered(2));
+        } finally {
+            stateLog.close();
+        }
+        assertEquals(Set.of(1, 2), recover().cluster(Broker.DEFAULT_CLUSTER).getBrokers().keySet());
+    }
+
+    @Test
+    void recordWithBadChecksumEndsReplay() throws IOException {
+        CoordinatorStateLog stateLog = open(1000);
+        try {
+            stateLog.record(registered(1));
+            stateLog.record(registered(2));
+        } finally {
+            stateLog.close();
+        }
+        Path wal = stateDir.resolve("coordinator.wal");
+        byte[] bytes = Files.readAllBytes(wal);
+        bytes[bytes.length - 2] ^= 0x7f;
+        Files.write(wal, bytes);
+
+        assertEquals(Set.of(1), recover().cluster(Broker.DEFAULT_CLUSTER).getBrokers().keySet());
+    }
+
+    @Test
+    void compactionFoldsTheLogIntoASnapshot() throws IOException {
+        CoordinatorStateLog stateLog = open(3);
+        try {
+            for (int uniqueId = 1; uniqueId <= 3; uniqueId++) {
+                stateLog.record(registered(uniqueId));
+            }
+            // the writer compacts right after completing the third record, before it takes the next
+            stateLog.record(registered(4));
+            assertTrue(Files.exists(stateDir.resolve("coordinator.snapshot")));
+            stateLog.record(CoordinatorEvent.brokerDeregistered(Broker.DEFAULT_CLUSTER, 1));
+        } finally {
+            stateLog.close();
+        }
+        JSONObject snapshot = new JSONObject(Files.readString(stateDir.resolve("coordinator.snapshot")));
+        assertEquals(3, snapshot.getLong("lastSequence"));
+
+        assertEquals(Set.of(2, 3, 4), recover().cluster(Broker.DEFAULT_CLUSTER).getBrokers().keySet());
+    }
+
+    @Test
+    void stateDirectoryIsLockedWhileInUse() {
+        CoordinatorStateLog first = open(1000);
+        try {
+            CoordinatorStateLog second = new CoordinatorStateLog(true, stateDir.toString(), false, 1000);
+            assertThrows(IllegalStateException.class, second::recover);
+        } finally {
+            first.close();
+        }
+    }
+
+    private CoordinatorStateLog open(int snapshotEvery) {
+        CoordinatorStateLog stateLog = new CoordinatorStateLog(true, stateDir.toString(), false, snapshotEvery);
+        stateLog.recover();
+        return stateLog;
+    }
+
+    private CoordinatorState recover() {
+        CoordinatorStateLog stateLog = new CoordinatorStateLog(true, stateDir.toString(), false, 1000);
+        try {
+            return stateLog.recover();
+        } finally {
+            stateLog.close();
+        }
+    }
+
+    private static CoordinatorEvent registered(int uniqueId) {
+        return CoordinatorEvent.brokerRegistered(
+                new Broker(Broker.DEFAULT_CLUSTER, "10.0.0." + uniqueId, 8080, uniqueId, "i-" + uniqueId));
+    }
+}
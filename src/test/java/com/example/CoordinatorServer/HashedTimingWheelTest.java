@@ -0,0 +1,68 @@
+package com.example.CoordinatorServer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class HashedTimingWheelTest {
+    private static final long TICK_MILLIS = 10;
+
+    private final List<String> expiredInOrder = new CopyOnWriteArrayList<>();
+    private final Map<String, Long> expiredAtNanos = new ConcurrentHashMap<>();
+    // four slots of 10 ms, so anything due after 40 ms goes round the wheel more than once
+    private final HashedTimingWheel<String> wheel = new HashedTimingWheel<>("test-wheel", TICK_MILLIS, 4,
+            expired -> {
+                long now = System.nanoTime();
+                for (String item : expired) {
+                    expiredAtNanos.put(item, now);
+                    expiredInOrder.add(item);
+                }
+            });
+
+    @AfterEach
+    void tearDown() {
+        wheel.stop();
+    }
+
+    @Test
+    void timeoutsExpireInDeadlineOrderAndNeverEarly() throws InterruptedException {
+        long now = System.nanoTime();
+        Map<String, Long> deadlines = Map.of(
+                "overdue", now - TimeUnit.MILLISECONDS.toNanos(50),
+                "soon", now + TimeUnit.MILLISECONDS.toNanos(25),
+                "after three rounds", now + TimeUnit.MILLISECONDS.toNanos(130));
+        deadlines.forEach((item, deadline) -> wheel.schedule(item, deadline));
+        wheel.start();
+
+        long giveUp = System.currentTimeMillis() + 5_000;
+        while (expiredInOrder.size() < deadlines.size() && System.currentTimeMillis() < giveUp) {
+            Thread.sleep(10);
+        }
+        assertEquals(List.of("overdue", "soon", "after three rounds"), expiredInOrder);
+        deadlines.forEach((item, deadline) -> assertTrue(expiredAtNanos.get(item) >= deadline,
+                item + " expired before its deadline"));
+    }
+
+    @Test
+    void timeoutScheduledWhileRunningExpires() throws InterruptedException {
+        wheel.start();
+        Thread.sleep(3 * TICK_MILLIS);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(60);
+        wheel.schedule("late", deadline);
+
+        long giveUp = System.currentTimeMillis() + 5_000;
+        while (expiredInOrder.isEmpty() && System.currentTimeMillis() < giveUp) {
+            Thread.sleep(10);
+        }
+        assertEquals(List.of("late"), expiredInOrder);
+        assertTrue(expiredAtNanos.get("late") >= deadline);
+    }
+}
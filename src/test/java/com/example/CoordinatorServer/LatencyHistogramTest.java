@@ -0,0 +1,72 @@
+package com.example.CoordinatorServer;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.junit.jupiter.api.Test;
+
+class LatencyHistogramTest {
+
+    @Test
+    void smallValuesHaveABucketEach() {
+        for (long value = 0; value < 32; value++) {
+            assertEquals(value, LatencyHistogram.highestEquivalentValue(LatencyHistogram.indexOf(value)));
+        }
+    }
+
+    @Test
+    void everyBucketCoversItsValueWithinAboutThreePercent() {
+        long[] values = { 32, 33, 63, 64, 65, 1_000, 1_023, 1_024, 999_999, 1L << 40, Long.MAX_VALUE };
+        for (long value : values) {
+            assertCovered(value);
+        }
+        for (int i = 0; i < 10_000; i++) {
+            assertCovered(ThreadLocalRandom.current().nextLong(1, Long.MAX_VALUE));
+        }
+    }
+
+    @Test
+    void bucketsFollowTheValueOrder() {
+        int previous = LatencyHistogram.indexOf(0);
+        for (long value = 1; value < 1 << 16; value++) {
+            int index = LatencyHistogram.indexOf(value);
+            assertTrue(index == previous || index == previous + 1, "gap in buckets at " + value);
+            previous = index;
+        }
+    }
+
+    @Test
+    void quantilesAreWithinTheBucketError() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long micros = 1; micros <= 1_000; micros++) {
+            histogram.record(micros * 1_000);
+        }
+        long[] quantiles = histogram.quantiles(0.5, 0.99, 1.0);
+        assertWithin(500_000, quantiles[0]);
+        assertWithin(990_000, quantiles[1]);
+        assertEquals(1_000_000, quantiles[2]);
+        assertEquals(1_000, histogram.getCount());
+        assertEquals(1_000_000, histogram.getMaxNanos());
+    }
+
+    @Test
+    void emptyHistogramReportsZeros() {
+        assertArrayEquals(new long[] { 0, 0 }, new LatencyHistogram().quantiles(0.5, 0.99));
+    }
+
+    private static void assertCovered(long value) {
+        int index = LatencyHistogram.indexOf(value);
+        long highest = LatencyHistogram.highestEquivalentValue(index);
+        assertTrue(highest >= value, value + " lies above its bucket");
+        assertTrue(index == 0 || LatencyHistogram.highestEquivalentValue(index - 1) < value,
+                value + " lies below its bucket");
+        assertTrue((double) (highest - value) / value <= 1.0 / 32, value + " reported as " + highest);
+    }
+
+    private static void assertWithin(long expected, long actual) {
+        assertTrue(actual >= expected && actual <= expected * 1.032, "expected about " + expected + ", got " + actual);
+    }
+}
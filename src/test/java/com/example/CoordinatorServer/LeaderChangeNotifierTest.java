@@ -0,0 +1,60 @@
+package com.example.CoordinatorServer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+class LeaderChangeNotifierTest {
+    private final LeaderChangeNotifier notifier = new LeaderChangeNotifier(
+            new BlockingTaskExecutors(new MockEnvironment()));
+    private final CountDownLatch unblock = new CountDownLatch(1);
+
+    @AfterEach
+    void tearDown() {
+        unblock.countDown();
+        notifier.stop();
+    }
+
+    @Test
+    void slowStreamInOneClusterDoesNotHoldUpAnother() throws Exception {
+        CountDownLatch sending = new CountDownLatch(1);
+        SseEmitter slowEmitter = mock(SseEmitter.class);
+        doAnswer(invocation -> {
+            sending.countDown();
+            unblock.await();
+            return null;
+        }).when(slowEmitter).send(any(SseEmitter.SseEventBuilder.class));
+        notifier.stream("slow", slowEmitter, null);
+        notifier.publish(view("slow", 1));
+        assertTrue(sending.await(5, TimeUnit.SECONDS));
+
+        DeferredResult<ResponseEntity<LeadershipView>> poll = new DeferredResult<>();
+        notifier.watch("fast", LeadershipView.none("fast").getEtag(), poll);
+        notifier.publish(view("fast", 1));
+
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!poll.hasResult() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(poll.hasResult(), "long-poll of another cluster waited on the slow stream");
+        @SuppressWarnings("unchecked")
+        ResponseEntity<LeadershipView> response = (ResponseEntity<LeadershipView>) poll.getResult();
+        assertEquals(1, response.getBody().getEpoch());
+    }
+
+    private static LeadershipView view(String clusterId, long epoch) {
+        return new LeadershipView(clusterId, epoch, "203.0.113.1", "10.0.0." + epoch, "i-" + epoch);
+    }
+}
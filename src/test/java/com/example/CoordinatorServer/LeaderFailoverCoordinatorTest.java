@@ -0,0 +1,79 @@
+package com.example.CoordinatorServer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+class LeaderFailoverCoordinatorTest {
+    private static final String LEADER_IP = "10.0.0.1";
+
+    private final CoordinatorServerService coordinatorServerService = mock(CoordinatorServerService.class);
+    private final BrokerHealthProbe brokerHealthProbe = mock(BrokerHealthProbe.class);
+    private final CountDownLatch pingAnswered = new CountDownLatch(1);
+    private LeaderFailoverCoordinator leaderFailoverCoordinator;
+
+    @BeforeEach
+    void setUp() {
+        when(coordinatorServerService.getleadEC2BrokerPrivateIP(Broker.DEFAULT_CLUSTER)).thenReturn(LEADER_IP);
+        when(coordinatorServerService.getLeaderEpoch(Broker.DEFAULT_CLUSTER)).thenReturn(3L);
+        // the leader turns out to be alive, once the test lets the ping answer
+        when(brokerHealthProbe.pingLeader(anyString())).thenAnswer(invocation -> {
+            pingAnswered.await();
+            return true;
+        });
+        leaderFailoverCoordinator = new LeaderFailoverCoordinator(coordinatorServerService, new BrokerRegistry(),
+                mock(PeerBroadcaster.class), brokerHealthProbe, new BlockingTaskExecutors(new MockEnvironment()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        pingAnswered.countDown();
+        leaderFailoverCoordinator.shutdown();
+    }
+
+    @Test
+    void reportsOfTheSameLeaderShareOneCheck() throws Exception {
+        List<CompletableFuture<FailoverResult>> reports = new ArrayList<>();
+        for (int peer = 0; peer < 10; peer++) {
+            reports.add(leaderFailoverCoordinator.reportLeaderFailure(Broker.DEFAULT_CLUSTER, LEADER_IP, true));
+        }
+        for (CompletableFuture<FailoverResult> report : reports) {
+            assertSame(reports.get(0), report);
+        }
+
+        pingAnswered.countDown();
+        FailoverResult result = reports.get(0).get(5, TimeUnit.SECONDS);
+        assertEquals(FailoverResult.Outcome.LEADER_ALIVE, result.getOutcome());
+        verify(brokerHealthProbe, times(1)).pingLeader(LEADER_IP);
+
+        // a report after the check finished starts a new one
+        leaderFailoverCoordinator.reportLeaderFailure(Broker.DEFAULT_CLUSTER, LEADER_IP, true)
+                .get(5, TimeUnit.SECONDS);
+        verify(brokerHealthProbe, times(2)).pingLeader(LEADER_IP);
+    }
+
+    @Test
+    void reportOfAFormerLeaderIsStale() throws Exception {
+        FailoverResult result = leaderFailoverCoordinator
+                .reportLeaderFailure(Broker.DEFAULT_CLUSTER, "10.0.0.9", true).get(5, TimeUnit.SECONDS);
+
+        assertEquals(FailoverResult.Outcome.STALE_REPORT, result.getOutcome());
+        verify(brokerHealthProbe, never()).pingLeader(anyString());
+    }
+}
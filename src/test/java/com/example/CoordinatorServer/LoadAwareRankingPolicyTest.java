@@ -0,0 +1,29 @@
+package com.example.CoordinatorServer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class LoadAwareRankingPolicyTest {
+    private final BrokerLoadTracker brokerLoadTracker = new BrokerLoadTracker(10_000, 60_000);
+    private final LoadAwareRankingPolicy policy = new LoadAwareRankingPolicy(brokerLoadTracker,
+            new BrokerLatencyTracker(), 1.0, 1.0, 10_000, 0.5, 50_000, 0.5, 100);
+
+    @Test
+    void unreportedMetricCountsAsFullyLoaded() {
+        Broker busy = broker(1);
+        Broker silent = broker(2);
+        Broker quiet = broker(3);
+        brokerLoadTracker.record(Broker.DEFAULT_CLUSTER, 1, new BrokerLoad(2_000.0, 0.5, 10_000.0, 0));
+        // reports no queue depth at all
+        brokerLoadTracker.record(Broker.DEFAULT_CLUSTER, 2, new BrokerLoad(null, 0.1, 1_000.0, 0));
+
+        assertEquals(List.of(busy, silent, quiet), policy.rank(List.of(quiet, silent, busy)));
+    }
+
+    private static Broker broker(int uniqueId) {
+        return new Broker(Broker.DEFAULT_CLUSTER, "10.0.0." + uniqueId, 8080, uniqueId, "i-" + uniqueId);
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.CoordinatorServer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.RestTemplate;
+
+class PeerBroadcasterTest {
+    private static final String ENDPOINT = "/new-leader";
+
+    private final RestTemplate restTemplate = mock(RestTemplate.class);
+    private final PeerBroadcaster peerBroadcaster = new PeerBroadcaster(restTemplate, 500, 2, 1,
+            new BlockingTaskExecutors(new MockEnvironment()));
+
+    @AfterEach
+    void tearDown() {
+        peerBroadcaster.shutdown();
+    }
+
+    @Test
+    void onlyServerErrorsAreRetried() {
+        when(restTemplate.postForObject(eq(url("10.0.0.1")), any(), eq(Void.class)))
+                .thenThrow(new HttpClientErrorException(HttpStatus.BAD_REQUEST));
+        when(restTemplate.postForObject(eq(url("10.0.0.2")), any(), eq(Void.class)))
+                .thenThrow(new HttpServerErrorException(HttpStatus.SERVICE_UNAVAILABLE))
+                .thenReturn(null);
+
+        BroadcastResult result = peerBroadcaster.broadcast(List.of("10.0.0.1", "10.0.0.2"), ENDPOINT,
+                HttpEntity.EMPTY);
+
+        assertEquals(Set.of("10.0.0.1"), result.getFailed().keySet());
+        assertEquals(List.of("10.0.0.2"), result.getAcked());
+        verify(restTemplate, times(1)).postForObject(eq(url("10.0.0.1")), any(), eq(Void.class));
+        verify(restTemplate, times(2)).postForObject(eq(url("10.0.0.2")), any(), eq(Void.class));
+    }
+
+    @Test
+    void slowPeerTimesOutWithoutTakingTimeFromTheOthers() {
+        when(restTemplate.postForObject(eq(url("10.0.0.1")), any(), eq(Void.class))).thenAnswer(invocation -> {
+            Thread.sleep(10_000);
+            return null;
+        });
+
+        BroadcastResult result = peerBroadcaster.broadcast(List.of("10.0.0.1", "10.0.0.2"), ENDPOINT,
+                HttpEntity.EMPTY);
+
+        assertEquals(List.of("10.0.0.1"), result.getTimedOut());
+        assertEquals(List.of("10.0.0.2"), result.getAcked());
+        assertTrue(result.getElapsedMillis() < 5_000, result.toString());
+    }
+
+    private static String url(String ipAddress) {
+        return "http://" + ipAddress + ENDPOINT;
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.CoordinatorServer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+class SuccessionPlanTest {
+    private final BrokerRegistry brokerRegistry = new BrokerRegistry();
+    private final InstanceMetadataCache instanceMetadataCache = mock(InstanceMetadataCache.class);
+    private final BrokerHealthProbe brokerHealthProbe = mock(BrokerHealthProbe.class);
+    private final RaftNode raftNode = mock(RaftNode.class);
+    private SuccessionPlan successionPlan;
+
+    @BeforeEach
+    void setUp() {
+        when(raftNode.isLeader()).thenReturn(true);
+        when(brokerHealthProbe.probe(anyString())).thenReturn(1_000_000L);
+        when(instanceMetadataCache.getPrivateIpAddresses(anyCollection())).thenAnswer(invocation -> {
+            Map<String, String> privateIps = new HashMap<>();
+            for (Object instanceId : (Collection<?>) invocation.getArgument(0)) {
+                privateIps.put((String) instanceId, "10.0.0." + ((String) instanceId).substring(2));
+            }
+            return privateIps;
+        });
+        successionPlan = new SuccessionPlan(brokerRegistry, new MaxUniqueIdRankingPolicy(), instanceMetadataCache,
+                brokerHealthProbe, new BrokerLatencyTracker(), raftNode,
+                new BlockingTaskExecutors(new MockEnvironment()), true, 20, 2, 8);
+    }
+
+    @AfterEach
+    void tearDown() {
+        successionPlan.stop();
+    }
+
+    @Test
+    void brokerWithoutInstanceIdIsVerifiedButNeverElected() throws InterruptedException {
+        brokerRegistry.registerAll(Broker.DEFAULT_CLUSTER, List.of(
+                new Broker(Broker.DEFAULT_CLUSTER, "10.0.0.1", 8080, 1, "i-1"),
+                new Broker(Broker.DEFAULT_CLUSTER, "10.0.0.3", 8080, 3, "i-3"),
+                // ranks first under max-unique-id, but has no instance to move the elastic IP to
+                new Broker(Broker.DEFAULT_CLUSTER, "10.0.0.9", 8080, 9, null)));
+        successionPlan.onLeaderChanged(Broker.DEFAULT_CLUSTER, "i-1");
+        successionPlan.start();
+
+        long deadline = System.currentTimeMillis() + 5_000;
+        List<SuccessionPlan.Standby> standbys = successionPlan.getStandbys(Broker.DEFAULT_CLUSTER);
+        while (!standbys.stream().allMatch(SuccessionPlan.Standby::isReachable)
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            standbys = successionPlan.getStandbys(Broker.DEFAULT_CLUSTER);
+        }
+        assertEquals(List.of(9, 3), standbys.stream().map(SuccessionPlan.Standby::getUniqueId).toList());
+        assertTrue(standbys.stream().allMatch(SuccessionPlan.Standby::isReachable));
+        assertEquals("10.0.0.9", standbys.get(0).getPrivateIp());
+
+        SuccessionPlan.Standby next = successionPlan.nextLeader(Broker.DEFAULT_CLUSTER);
+        assertEquals(3, next.getUniqueId());
+        assertEquals("10.0.0.3", next.getPrivateIp());
+    }
+
+    @Test
+    void noLeaderWhenOnlyBrokersWithoutInstanceIdAreLeft() {
+        brokerRegistry.registerAll(Broker.DEFAULT_CLUSTER, List.of(
+                new Broker(Broker.DEFAULT_CLUSTER, "10.0.0.1", 8080, 1, "i-1"),
+                new Broker(Broker.DEFAULT_CLUSTER, "10.0.0.2", 8080, 2, null)));
+        successionPlan.onLeaderChanged(Broker.DEFAULT_CLUSTER, "i-1");
+
+        assertNull(successionPlan.nextLeader(Broker.DEFAULT_CLUSTER));
+        assertEquals(1, successionPlan.getStandbys(Broker.DEFAULT_CLUSTER).size());
+    }
+}
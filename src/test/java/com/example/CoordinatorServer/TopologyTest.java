@@ -0,0 +1,64 @@
+package com.example.CoordinatorServer;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class TopologyTest {
+    private final LeadershipView leadership = new LeadershipView(Broker.DEFAULT_CLUSTER, 4, "203.0.113.1",
+            "10.0.0.2", "i-2");
+
+    @Test
+    void binaryFormLaysOutEveryMemberWithItsFlags() throws IOException {
+        Topology topology = Topology.of(registry(), leadership, Topology.ReadPolicy.PEERS);
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(topology.toBinary()));
+        assertEquals(Topology.FORMAT, in.readByte());
+        assertEquals(4, in.readLong());
+        assertEquals(Broker.DEFAULT_CLUSTER, in.readUTF());
+        assertEquals("203.0.113.1", in.readUTF());
+        assertEquals(Topology.ReadPolicy.PEERS.ordinal(), in.readByte());
+        assertEquals(2, in.readInt());
+
+        assertEquals(1, in.readInt());
+        assertEquals("10.0.0.1", in.readUTF());
+        assertEquals(8080, in.readUnsignedShort());
+        assertEquals(Topology.FLAG_READS, in.readByte());
+
+        assertEquals(2, in.readInt());
+        assertEquals("10.0.0.2", in.readUTF());
+        assertEquals(9092, in.readUnsignedShort());
+        assertEquals(Topology.FLAG_LEADER, in.readByte());
+        assertEquals(-1, in.read());
+    }
+
+    @Test
+    void sameStateEncodesTheSameOnEveryReplica() {
+        BrokerRegistry replica = new BrokerRegistry();
+        // a longer history, so this replica's registry version differs
+        replica.register(new Broker(Broker.DEFAULT_CLUSTER, "10.0.0.3", 8080, 3, "i-3"));
+        replica.remove(Broker.DEFAULT_CLUSTER, 3);
+        replica.registerAll(Broker.DEFAULT_CLUSTER, brokers());
+
+        assertArrayEquals(Topology.of(registry(), leadership, Topology.ReadPolicy.ANY).toBinary(),
+                Topology.of(replica.snapshot(Broker.DEFAULT_CLUSTER), leadership, Topology.ReadPolicy.ANY)
+                        .toBinary());
+    }
+
+    private static BrokerRegistry.Snapshot registry() {
+        BrokerRegistry brokerRegistry = new BrokerRegistry();
+        brokerRegistry.registerAll(Broker.DEFAULT_CLUSTER, brokers());
+        return brokerRegistry.snapshot(Broker.DEFAULT_CLUSTER);
+    }
+
+    private static List<Broker> brokers() {
+        return List.of(new Broker(Broker.DEFAULT_CLUSTER, "10.0.0.1", 8080, 1, "i-1"),
+                new Broker(Broker.DEFAULT_CLUSTER, "10.0.0.2", 9092, 2, "i-2"));
+    }
+}